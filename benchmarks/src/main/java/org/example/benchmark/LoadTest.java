@@ -0,0 +1,128 @@
+package org.example.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * closed-loop load test of a running service: every client sends the next request
+ * when the response to the previous one has arrived. prints the throughput and the latency
+ * percentiles, to compare the serving modes run it against the service started with
+ * serving.virtual-threads false and true, ideally on cold caches so the first requests load the files.
+ * <p>
+ * usage: LoadTest {url[,url...]} {clients} {seconds}
+ * e.g. LoadTest http://localhost:8080/v1/prices,http://localhost:8080/v1/BTC 2000 30
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("usage: LoadTest {url[,url...]} {clients} {seconds}");
+            System.exit(1);
+        }
+        List<URI> uris = new ArrayList<>();
+        for (String url: args[0].split(",")) {
+            uris.add(URI.create(url));
+        }
+        int clients = Integer.parseInt(args[1]);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(Long.parseLong(args[2]));
+        HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+        AtomicLong errors = new AtomicLong();
+        Client[] running = new Client[clients];
+        CompletableFuture<?>[] done = new CompletableFuture<?>[clients];
+        long start = System.nanoTime();
+        for (int i = 0; i < clients; i++) {
+            running[i] = new Client(httpClient, uris, i, deadline, errors);
+            done[i] = running[i].next();
+        }
+        CompletableFuture.allOf(done).join();
+        long elapsed = System.nanoTime() - start;
+
+        int count = 0;
+        for (Client client: running) {
+            count += client.count;
+        }
+        long[] latencies = new long[count];
+        int position = 0;
+        for (Client client: running) {
+            System.arraycopy(client.latencies, 0, latencies, position, client.count);
+            position += client.count;
+        }
+        Arrays.sort(latencies);
+        System.out.printf("clients %d, requests %d, errors %d, %.0f requests/s%n",
+            clients, count, errors.get(), count / (elapsed / 1e9));
+        if (count > 0) {
+            System.out.printf("latency ms: p50 %.1f, p90 %.1f, p99 %.1f, p99.9 %.1f, max %.1f%n",
+                percentile(latencies, 0.5), percentile(latencies, 0.9), percentile(latencies, 0.99),
+                percentile(latencies, 0.999), latencies[count - 1] / 1e6);
+        }
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1)] / 1e6;
+    }
+
+    /**
+     * one client sends one request at a time, the latencies are recorded on the completion
+     * of the previous request, so they need no synchronization.
+     */
+    private static final class Client {
+        private final HttpClient httpClient;
+        private final List<URI> uris;
+        private final long deadline;
+        private final AtomicLong errors;
+        private int next;
+        private long[] latencies = new long[1024];
+        private int count;
+
+        private Client(HttpClient httpClient, List<URI> uris, int first, long deadline, AtomicLong errors) {
+            this.httpClient = httpClient;
+            this.uris = uris;
+            this.next = first;
+            this.deadline = deadline;
+            this.errors = errors;
+        }
+
+        private CompletableFuture<Void> next() {
+            if (System.nanoTime() >= deadline) {
+                return CompletableFuture.completedFuture(null);
+            }
+            HttpRequest request = HttpRequest.newBuilder(uris.get(next++ % uris.size()))
+                .timeout(Duration.ofSeconds(60))
+                .build();
+            long start = System.nanoTime();
+            return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, e) -> {
+                    if (e != null || response.statusCode() >= 400) {
+                        errors.incrementAndGet();
+                    } else {
+                        record(System.nanoTime() - start);
+                    }
+                    return null;
+                })
+                .thenCompose(ignored -> next());
+        }
+
+        private void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Random;
+
+/**
+ * writes synthetic {CRYPTO_NAME}_values.csv files in the format of the service:
+ * a header and rows of timestamp,symbol,price. the timestamps of a file are spread evenly
+ * over a month, the prices are a random walk with two decimals.
+ * <p>
+ * usage: PriceFileGenerator {directory} {symbols} {rows per symbol} [seed]
+ */
+public final class PriceFileGenerator {
+
+    private static final long START = LocalDate.of(2022, 1, 1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    private static final long MONTH = 31L * 24 * 60 * 60 * 1000;
+
+    private PriceFileGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("usage: PriceFileGenerator {directory} {symbols} {rows per symbol} [seed]");
+            System.exit(1);
+        }
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+        generate(Path.of(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]), seed);
+    }
+
+    /**
+     * @param directory created if missing
+     * @param symbols number of files
+     * @param rows number of rows per file
+     * @param seed the same seed writes the same files
+     */
+    public static void generate(Path directory, int symbols, int rows, long seed) throws IOException {
+        Files.createDirectories(directory);
+        Random random = new Random(seed);
+        for (int i = 0; i < symbols; i++) {
+            String symbol = symbolName(i);
+            try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve(symbol + "_values.csv"),
+                StandardCharsets.UTF_8)) {
+                writer.write("timestamp,symbol,price\n");
+                long step = Math.max(1, MONTH / Math.max(rows, 1));
+                long cents = 100_000 + random.nextInt(10_000_000);
+                for (int row = 0; row < rows; row++) {
+                    cents = Math.max(1, cents + Math.round(random.nextGaussian() * cents / 500));
+                    writer.write(Long.toString(START + row * step));
+                    writer.write(',');
+                    writer.write(symbol);
+                    writer.write(',');
+                    writer.write(Long.toString(cents / 100));
+                    writer.write(cents % 100 < 10 ? ".0" : ".");
+                    writer.write(Long.toString(cents % 100));
+                    writer.write('\n');
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the name of the i-th generated currency, upper case letters like the real ones: A, B, ..., Z, BA, BB, ...
+     */
+    public static String symbolName(int i) {
+        StringBuilder name = new StringBuilder();
+        do {
+            name.append((char) ('A' + i % 26));
+            i /= 26;
+        } while (i > 0);
+        return name.reverse().toString();
+    }
+
+    /**
+     * @return a day with prices in the generated files
+     */
+    public static LocalDate middleDay() {
+        return LocalDate.of(2022, 1, 15);
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.benchmark;
+
+import org.example.model.PriceSeries;
+import org.example.service.PriceService;
+import org.example.util.Currency;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * the hot paths of PriceService on generated price files.
+ * readFile parses one file, the other benchmarks answer from the loaded prices.
+ * the size of the data is set with -p symbols=... -p rows=...
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PriceServiceBenchmark {
+
+    @Param({"10"})
+    public int symbols;
+
+    @Param({"100000"})
+    public int rows;
+
+    private Path directory;
+    private PriceService priceService;
+    private String symbol;
+    private LocalDate day;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("price-benchmark");
+        PriceFileGenerator.generate(directory, symbols, rows, 42);
+        priceService = new PriceService();
+        priceService.directory = directory.toString();
+        priceService.getPrices();
+        symbol = PriceFileGenerator.symbolName(0);
+        day = PriceFileGenerator.middleDay();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> {
+                try {
+                    Files.delete(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    @Benchmark
+    public PriceSeries readFile() {
+        return priceService.readFile(symbol);
+    }
+
+    @Benchmark
+    public Map<Currency, Map<String, Double>> getPrices() {
+        return priceService.getPrices();
+    }
+
+    @Benchmark
+    public List<Map.Entry<Currency, Double>> getNormalized() {
+        return priceService.getNormalized();
+    }
+
+    @Benchmark
+    public String getNormalizedForDay() {
+        return priceService.getNormalizedForDay(day);
+    }
+}
@@ -0,0 +1,78 @@
+package org.example.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * with serving.virtual-threads: true every request is handled on its own virtual thread
+ * instead of the bounded tomcat pool, so the requests blocked by a cold file load
+ * do not hold the threads the other requests need. the streamed responses (candles)
+ * are written on virtual threads as well.
+ * <p>
+ * the project is built for java 17, the executor is looked up by reflection.
+ * on a runtime without virtual threads (before java 21) a warning is logged at start and the default pools are kept.
+ * the executor is a bean, it is shut down when the context is closed.
+ */
+@Configuration
+@ConditionalOnProperty(name = "serving.virtual-threads", havingValue = "true")
+public class VirtualThreadConfiguration {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadConfiguration.class);
+
+    /**
+     * @return Executors.newVirtualThreadPerTaskExecutor(), null if the runtime has no virtual threads
+     */
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+                .invoke(null);
+            LOGGER.info("serving the requests on virtual threads");
+            return executor;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.warn("serving.virtual-threads is enabled, but virtual threads are not available on java {}, "
+                + "serving on the default pool", Runtime.version().feature());
+            return null;
+        }
+    }
+
+    /**
+     * a null bean if the runtime has no virtual threads, spring does not shut it down then.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor() {
+        return newVirtualThreadPerTaskExecutor();
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        ExecutorService executor = virtualThreadExecutor();
+        return protocolHandler -> {
+            if (executor != null) {
+                protocolHandler.setExecutor(executor);
+            }
+        };
+    }
+
+    @Bean
+    public WebMvcConfigurer virtualThreadAsyncConfigurer() {
+        ExecutorService executor = virtualThreadExecutor();
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                if (executor != null) {
+                    configurer.setTaskExecutor(new TaskExecutorAdapter(executor));
+                }
+            }
+        };
+    }
+}
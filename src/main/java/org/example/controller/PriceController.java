@@ -1,25 +1,66 @@
 package org.example.controller;
 
+import org.example.model.CandleInterval;
+import org.example.model.Candles;
+import org.example.model.Correlation;
+import org.example.model.PriceQuery;
+import org.example.model.Returns;
+import org.example.model.Tick;
 import org.example.service.PriceService;
 import org.example.util.Currency;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
 import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("v1")
 public class PriceController {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(PriceController.class);
+    private static final int MAX_SERIALIZE_TRIES = 3;
     private final PriceService priceService;
+    /**
+     * the data versions start from 0 after every start, the ETags of a previous run must not match.
+     */
+    private final String etagPrefix = Long.toString(System.currentTimeMillis(), 36);
+    private volatile CachedResponse pricesResponse;
+    private volatile CachedResponse normalizedResponse;
+
+    /**
+     * number of the decimal places of the normalized ranges in /normalized, rounded half up.
+     * not rounded if negative.
+     */
+    @Value("${normalized.scale:-1}")
+    public int normalizedScale = -1;
 
     public PriceController(PriceService priceService) {
         this.priceService = priceService;
@@ -28,6 +69,7 @@ public class PriceController {
     @GetMapping(value = "/{currency}")
     public ResponseEntity<?> getPrices(@PathVariable(name = "currency") String currency) {
         LOGGER.info("called API /{currency} with an argument {}", currency);
+        checkReady();
         Currency cryptoCurrency = getCurrency(currency);
         if (cryptoCurrency == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid currency: " + currency);
@@ -40,42 +82,405 @@ public class PriceController {
         }
     }
 
+    /**
+     * the statistics of the currency in a time window.
+     * from, to: epoch millis, from inclusive, to exclusive
+     */
+    @GetMapping("/{currency}/stats")
+    public ResponseEntity<?> getStats(@PathVariable(name = "currency") String currency,
+                                      @RequestParam(name = "from") long from,
+                                      @RequestParam(name = "to") long to) {
+        LOGGER.info("called API /{currency}/stats with arguments {} {} {}", currency, from, to);
+        checkReady();
+        Currency cryptoCurrency = getCurrency(currency);
+        if (cryptoCurrency == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid currency: " + currency);
+        }
+        if (from > to) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid range: " + from + " is after " + to);
+        }
+        try {
+            Map<String, Object> stats = priceService.getStats(currency, from, to);
+            if (stats == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No data available for the given range");
+            }
+            return ResponseEntity.ok(stats);
+        } catch (Exception e) {
+            LOGGER.error("Error fetching statistics for currency {}", currency, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error fetching statistics");
+        }
+    }
+
+    /**
+     * open, high, low, close prices of the currency per interval: 1m, 1h or 1d.
+     * from, to: optional epoch millis, the candles starting at from inclusive and before to exclusive.
+     * the candles are written to the response one by one, no list is built.
+     */
+    @GetMapping("/{currency}/candles")
+    public ResponseEntity<?> getCandles(@PathVariable(name = "currency") String currency,
+                                        @RequestParam(name = "interval") String interval,
+                                        @RequestParam(name = "from", required = false) Long from,
+                                        @RequestParam(name = "to", required = false) Long to) {
+        LOGGER.info("called API /{currency}/candles with arguments {} {} {} {}", currency, interval, from, to);
+        checkReady();
+        Currency cryptoCurrency = getCurrency(currency);
+        if (cryptoCurrency == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid currency: " + currency);
+        }
+        CandleInterval candleInterval = CandleInterval.of(interval);
+        if (candleInterval == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid interval: " + interval);
+        }
+        if (from != null && to != null && from > to) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid range: " + from + " is after " + to);
+        }
+        try {
+            Candles candles = priceService.getCandles(currency, candleInterval);
+            int first = from == null ? 0 : candles.lowerBound(from);
+            int last = to == null ? candles.size() : candles.lowerBound(to);
+            StreamingResponseBody body = out -> writeCandles(candles, first, last, out);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+        } catch (Exception e) {
+            LOGGER.error("Error fetching candles for currency {}", currency, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error fetching candles");
+        }
+    }
+
+    /**
+     * writes [{"start": epoch millis, "open": .., "high": .., "low": .., "close": ..}, ...]
+     */
+    private static void writeCandles(Candles candles, int first, int last, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write('[');
+        for (int i = first; i < last; i++) {
+            if (i > first) {
+                writer.write(',');
+            }
+            writer.write("{\"start\":");
+            writer.write(Long.toString(candles.start(i)));
+            writer.write(",\"open\":");
+            writer.write(Double.toString(candles.open(i)));
+            writer.write(",\"high\":");
+            writer.write(Double.toString(candles.high(i)));
+            writer.write(",\"low\":");
+            writer.write(Double.toString(candles.low(i)));
+            writer.write(",\"close\":");
+            writer.write(Double.toString(candles.close(i)));
+            writer.write('}');
+        }
+        writer.write(']');
+        writer.flush();
+    }
+
+    /**
+     * log returns of the close prices of the currency per interval: 1m, 1h or 1d,
+     * with the rolling standard deviation of the last window returns.
+     * from, to: optional epoch millis, the grid of the interval in [from, to), the span of the candles by default.
+     */
+    @GetMapping("/{currency}/returns")
+    public ResponseEntity<?> getReturns(@PathVariable(name = "currency") String currency,
+                                        @RequestParam(name = "interval") String interval,
+                                        @RequestParam(name = "window", defaultValue = "20") int window,
+                                        @RequestParam(name = "from", required = false) Long from,
+                                        @RequestParam(name = "to", required = false) Long to) {
+        LOGGER.info("called API /{currency}/returns with arguments {} {} {} {} {}", currency, interval, window, from, to);
+        checkReady();
+        Currency cryptoCurrency = getCurrency(currency);
+        if (cryptoCurrency == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid currency: " + currency);
+        }
+        CandleInterval candleInterval = CandleInterval.of(interval);
+        if (candleInterval == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid interval: " + interval);
+        }
+        if (window < 2) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid window: " + window);
+        }
+        if (from != null && to != null && from > to) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid range: " + from + " is after " + to);
+        }
+        try {
+            Returns returns = priceService.getReturns(currency, candleInterval, from, to);
+            double[] volatility = returns.rollingStandardDeviation(window);
+            StreamingResponseBody body = out -> writeReturns(returns, volatility, out);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (Exception e) {
+            LOGGER.error("Error fetching returns for currency {}", currency, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error fetching returns");
+        }
+    }
+
+    /**
+     * writes [{"time": epoch millis, "close": .., "return": .., "volatility": ..}, ...] from the first defined return,
+     * the volatility is null until the window is full
+     */
+    private static void writeReturns(Returns returns, double[] volatility, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write('[');
+        for (int i = returns.first(); i < returns.size(); i++) {
+            if (i > returns.first()) {
+                writer.write(',');
+            }
+            writer.write("{\"time\":");
+            writer.write(Long.toString(returns.time(i)));
+            writer.write(",\"close\":");
+            writer.write(Double.toString(returns.close(i)));
+            writer.write(",\"return\":");
+            writer.write(Double.toString(returns.value(i)));
+            writer.write(",\"volatility\":");
+            writer.write(number(volatility[i]));
+            writer.write('}');
+        }
+        writer.write(']');
+        writer.flush();
+    }
+
+    /**
+     * pearson correlation of the log returns per interval of every pair of the currencies.
+     * currencies: optional comma separated names, all the currencies by default.
+     * from, to: optional epoch millis, the grid of the interval in [from, to), the span of the candles by default.
+     */
+    @GetMapping("/correlation")
+    public ResponseEntity<?> getCorrelation(@RequestParam(name = "currencies", required = false) List<String> currencies,
+                                            @RequestParam(name = "interval") String interval,
+                                            @RequestParam(name = "from", required = false) Long from,
+                                            @RequestParam(name = "to", required = false) Long to) {
+        LOGGER.info("called API /correlation with arguments {} {} {} {}", currencies, interval, from, to);
+        checkReady();
+        if (currencies != null) {
+            for (String currency: currencies) {
+                if (currency == null || getCurrency(currency) == null) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid currency: " + currency);
+                }
+            }
+        }
+        CandleInterval candleInterval = CandleInterval.of(interval);
+        if (candleInterval == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid interval: " + interval);
+        }
+        if (from != null && to != null && from > to) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid range: " + from + " is after " + to);
+        }
+        try {
+            Correlation correlation = priceService.getCorrelation(currencies, candleInterval, from, to);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                .body(writeCorrelation(correlation).getBytes(StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (Exception e) {
+            LOGGER.error("Error calculating the correlation of {}", currencies, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error calculating the correlation");
+        }
+    }
+
+    /**
+     * {"interval": "1h", "from": .., "to": .., "currencies": ["BTC", ..], "matrix": [[1.0, ..], ..]},
+     * null for an undefined correlation
+     */
+    private static String writeCorrelation(Correlation correlation) {
+        int count = correlation.currencies().size();
+        StringBuilder json = new StringBuilder(96 + count * (16 + 24 * count));
+        json.append("{\"interval\":\"").append(correlation.interval().getCode())
+            .append("\",\"from\":").append(correlation.from())
+            .append(",\"to\":").append(correlation.to())
+            .append(",\"currencies\":[");
+        for (int i = 0; i < count; i++) {
+            json.append(i > 0 ? ",\"" : "\"").append(correlation.currencies().get(i)).append('"');
+        }
+        json.append("],\"matrix\":[");
+        for (int i = 0; i < count; i++) {
+            json.append(i > 0 ? ",[" : "[");
+            for (int j = 0; j < count; j++) {
+                if (j > 0) {
+                    json.append(',');
+                }
+                json.append(number(correlation.matrix()[i][j]));
+            }
+            json.append(']');
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * JSON has no NaN, an undefined value is written as null.
+     */
+    private static String number(double value) {
+        return Double.isNaN(value) ? "null" : Double.toString(value);
+    }
+
+    /**
+     * adds a batch of ticks to the prices of the currency.
+     * body: [{"timestamp": epoch millis, "price": price}, ...]
+     */
+    @PostMapping("/{currency}/ticks")
+    public ResponseEntity<?> ingestTicks(@PathVariable(name = "currency") String currency,
+                                         @RequestBody List<Tick> ticks) {
+        LOGGER.info("called API /{currency}/ticks with an argument {}", currency);
+        checkReady();
+        Currency cryptoCurrency = getCurrency(currency);
+        if (cryptoCurrency == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid currency: " + currency);
+        }
+        if (ticks == null || ticks.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No ticks");
+        }
+        for (Tick tick: ticks) {
+            if (tick == null || tick.timestamp() < 0 || !Double.isFinite(tick.price()) || tick.price() < 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid tick: " + tick);
+            }
+        }
+        try {
+            return ResponseEntity.ok(priceService.ingest(currency, ticks));
+        } catch (Exception e) {
+            LOGGER.error("Error ingesting ticks for currency {}", currency, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error ingesting ticks");
+        }
+    }
+
+    /**
+     * answers the queries for several cryptos and days at once.
+     * body: {"currencies": [names], "days": [YYYY-MM-DD], "stats": [oldest|newest|min|max|normalized]}
+     * zone: optional time zone of the days, e.g. UTC or Europe/Sofia, the zone of the server by default
+     */
+    @PostMapping("/query")
+    public ResponseEntity<?> query(@RequestBody PriceQuery query,
+                                   @RequestParam(name = "zone", required = false) String zone) {
+        LOGGER.info("called API /query with arguments {} {}", query, zone);
+        checkReady();
+        ZoneId zoneId = getZone(zone);
+        if (query == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No query");
+        }
+        if (query.currencies() != null) {
+            for (String currency: query.currencies()) {
+                if (currency == null || getCurrency(currency) == null) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid currency: " + currency);
+                }
+            }
+        }
+        if (query.days() != null) {
+            for (LocalDate day: query.days()) {
+                if (day == null) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid day: null");
+                }
+            }
+        }
+        if (query.stats() != null) {
+            for (String stat: query.stats()) {
+                if (stat == null || !PriceQuery.STATS.contains(stat)) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid statistic: " + stat);
+                }
+            }
+        }
+        try {
+            return ResponseEntity.ok(priceService.query(query, zoneId));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (Exception e) {
+            LOGGER.error("Error answering the query {}", query, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error answering the query");
+        }
+    }
+
+    /**
+     * the response is serialized once per data version. a request with the ETag
+     * of the current version in If-None-Match is answered with 304 Not Modified.
+     */
     @GetMapping("/prices")
-    public ResponseEntity<?> getAllPrices() {
+    public ResponseEntity<?> getAllPrices(WebRequest request) {
         LOGGER.info("called API /prices");
+        checkReady();
         try {
-            return ResponseEntity.ok(priceService.getPrices());
+            CachedResponse response = pricesResponse;
+            if (response == null || response.version() != priceService.getDataVersion()) {
+                response = cache(() -> writePrices(priceService.getPrices()));
+                pricesResponse = response;
+            }
+            return respond(response, request);
         } catch (Exception e) {
             LOGGER.error("Error fetching all prices", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error fetching all prices");
         }
     }
 
+    /**
+     * the cryptos sorted by the normalized range, descending.
+     * with the limit only the first limit cryptos are returned.
+     * the full ranking is serialized once per data version and supports If-None-Match like /prices.
+     */
     @GetMapping("/normalized")
-    public ResponseEntity<?> getNormalizedForAll() {
-        LOGGER.info("called API /normalized");
+    public ResponseEntity<?> getNormalizedForAll(@RequestParam(name = "limit", required = false) Integer limit,
+                                                 WebRequest request) {
+        LOGGER.info("called API /normalized with an argument {}", limit);
+        checkReady();
+        if (limit != null && limit < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid limit: " + limit);
+        }
         try {
-            return ResponseEntity.ok(priceService.getNormalized());
+            if (limit != null) {
+                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                    .body(writeNormalized(priceService.getNormalized(limit)).getBytes(StandardCharsets.UTF_8));
+            }
+            CachedResponse response = normalizedResponse;
+            if (response == null || response.version() != priceService.getDataVersion()) {
+                response = cache(() -> writeNormalized(priceService.getNormalized()));
+                normalizedResponse = response;
+            }
+            return respond(response, request);
         } catch (Exception e) {
             LOGGER.error("Error fetching normalized data for all currencies", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error fetching normalized data");
         }
     }
 
+    /**
+     * the crypto with the highest normalized range for every day of a range.
+     * format of the days: YYYY-MM-DD
+     * zone: optional time zone of the days, the zone of the server by default
+     */
+    @GetMapping("/normalized/daily")
+    public ResponseEntity<?> getNormalizedForDays(
+        @RequestParam(name = "from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(name = "to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+        @RequestParam(name = "zone", required = false) String zone) {
+        LOGGER.info("called API /normalized/daily with arguments {} {} {}", from, to, zone);
+        checkReady();
+        ZoneId zoneId = getZone(zone);
+        if (from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid range: " + from + " is after " + to);
+        }
+        try {
+            return ResponseEntity.ok(priceService.getNormalizedForDays(from, to, zoneId));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (Exception e) {
+            LOGGER.error("Error fetching normalized data for days {} - {}", from, to, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error fetching normalized data for days");
+        }
+    }
+
     /**
      * the crypto with the highest normalized range for a
      * specific day.
      * format: YYYY-MM-DD
+     * zone: optional time zone of the day, the zone of the server by default
      */
     @GetMapping("/normalized/{day}")
-    public ResponseEntity<?> getNormalizedForDay(@PathVariable(name = "day") LocalDate day) {
-        LOGGER.info("called API /normalized/{day} with an argument {}", day);
+    public ResponseEntity<?> getNormalizedForDay(@PathVariable(name = "day") LocalDate day,
+                                                 @RequestParam(name = "zone", required = false) String zone) {
+        LOGGER.info("called API /normalized/{day} with arguments {} {}", day, zone);
+        checkReady();
+        ZoneId zoneId = getZone(zone);
         try {
-            String normalizedCurrency = priceService.getNormalizedForDay(day);
+            String normalizedCurrency = priceService.getNormalizedForDay(day, zoneId);
             if (normalizedCurrency == null) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No data available for the given day");
             }
             return ResponseEntity.ok(normalizedCurrency);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
         } catch (Exception e) {
             LOGGER.error("Error fetching normalized data for day {}", day, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error fetching normalized data for day " + day);
@@ -83,14 +488,115 @@ public class PriceController {
     }
 
     /**
-     * Utility method to validate and retrieve the Currency enum.
+     * a serialized response of a data version.
      */
-    private Currency getCurrency(String currency) {
+    private record CachedResponse(long version, String etag, long lastModified, byte[] body) {
+    }
+
+    /**
+     * the version is read before and after the data. if the prices have changed meanwhile,
+     * e.g. the first request has loaded the files, the data is serialized again.
+     * after a few tries the body is labeled with the version before, which is never newer than the body,
+     * so a client is not told that an older body is current.
+     */
+    private CachedResponse cache(Supplier<String> json) {
+        long version;
+        String body;
+        int tries = 0;
+        do {
+            version = priceService.getDataVersion();
+            body = json.get();
+        } while (version != priceService.getDataVersion() && ++tries < MAX_SERIALIZE_TRIES);
+        return new CachedResponse(version, "\"" + etagPrefix + "-" + version + "\"", System.currentTimeMillis(),
+            body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * checkNotModified() adds the ETag and Last-Modified headers and sets 304 if the client has the version.
+     */
+    private static ResponseEntity<?> respond(CachedResponse response, WebRequest request) {
+        if (request != null && request.checkNotModified(response.etag(), response.lastModified())) {
+            return null;
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(response.body());
+    }
+
+    /**
+     * {"BTC": {"min": .., "max": .., "oldest": .., "newest": ..}, ...}, the same as Jackson writes the map
+     */
+    private static String writePrices(Map<Currency, Map<String, Double>> prices) {
+        StringBuilder json = new StringBuilder(64 + 96 * prices.size()).append('{');
+        for (Map.Entry<Currency, Map<String, Double>> currency: prices.entrySet()) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append('"').append(currency.getKey().name()).append("\":{");
+            boolean first = true;
+            for (Map.Entry<String, Double> stat: currency.getValue().entrySet()) {
+                if (!first) {
+                    json.append(',');
+                }
+                first = false;
+                json.append('"').append(stat.getKey()).append("\":").append(stat.getValue());
+            }
+            json.append('}');
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * [{"BTC": normalized}, ...], the same as Jackson writes the entries.
+     * the ranges are rounded to normalizedScale here, the service keeps them unrounded.
+     */
+    private String writeNormalized(List<Map.Entry<Currency, Double>> normalized) {
+        StringBuilder json = new StringBuilder(16 + 32 * normalized.size()).append('[');
+        for (Map.Entry<Currency, Double> entry: normalized) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append("{\"").append(entry.getKey().name()).append("\":");
+            if (normalizedScale < 0) {
+                json.append(entry.getValue().doubleValue());
+            } else {
+                json.append(BigDecimal.valueOf(entry.getValue()).setScale(normalizedScale, RoundingMode.HALF_UP));
+            }
+            json.append('}');
+        }
+        return json.append(']').toString();
+    }
+
+    /**
+     * @param zone a region id like Europe/Sofia or an offset like +02:00
+     * @return the zone, null if not given
+     */
+    private static ZoneId getZone(String zone) {
+        if (zone == null || zone.isEmpty()) {
+            return null;
+        }
         try {
-            return Currency.valueOf(currency.toUpperCase());
-        } catch (IllegalArgumentException e) {
+            return ZoneId.of(zone);
+        } catch (DateTimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid zone: " + zone);
+        }
+    }
+
+    /**
+     * the prices are not served until the warm-up has loaded them.
+     */
+    private void checkReady() {
+        if (!priceService.isReady()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Prices are loading");
+        }
+    }
+
+    /**
+     * Utility method to validate and retrieve the registered Currency.
+     */
+    private Currency getCurrency(String currency) {
+        Currency cryptoCurrency = priceService.findCurrency(currency);
+        if (cryptoCurrency == null) {
             LOGGER.warn("Invalid currency: {}", currency);
-            return null;
         }
+        return cryptoCurrency;
     }
 }
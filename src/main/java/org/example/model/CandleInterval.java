@@ -0,0 +1,52 @@
+package org.example.model;
+
+/**
+ * the intervals of the candles. the candles are aligned to the epoch, so the daily candles
+ * start at midnight UTC.
+ * the hourly and the daily candles are precomputed with the series. the minute candles of minute-resolution prices
+ * take about 40 bytes per tick, more than twice the 16 bytes of the tick itself, so they are built on the first use.
+ */
+public enum CandleInterval {
+
+    ONE_MINUTE("1m", 60_000L, false),
+    ONE_HOUR("1h", 3_600_000L, true),
+    ONE_DAY("1d", 86_400_000L, true);
+
+    private final String code;
+    private final long millis;
+    private final boolean precomputed;
+
+    CandleInterval(String code, long millis, boolean precomputed) {
+        this.code = code;
+        this.millis = millis;
+        this.precomputed = precomputed;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    /**
+     * @return true if the candles are built with the series, false if on the first use
+     */
+    public boolean isPrecomputed() {
+        return precomputed;
+    }
+
+    /**
+     * @param code 1m, 1h or 1d
+     * @return the interval, null if the code is unknown
+     */
+    public static CandleInterval of(String code) {
+        for (CandleInterval interval: values()) {
+            if (interval.code.equals(code)) {
+                return interval;
+            }
+        }
+        return null;
+    }
+}
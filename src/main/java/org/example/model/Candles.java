@@ -0,0 +1,244 @@
+package org.example.model;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * open, high, low, close prices of a series per interval, only the intervals with prices are stored.
+ * the candles are updated with every appended tick, they are never calculated from the whole series again.
+ * <p>
+ * the candles are immutable. the closed candles live in arrays shared with the
+ * extended candles, which only write past the candles visible here, while the last candle,
+ * which can still get prices, is kept in the fields of every instance.
+ */
+public final class Candles {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final CandleInterval interval;
+    private final long[] starts;
+    private final double[] open;
+    private final double[] high;
+    private final double[] low;
+    private final double[] close;
+    private final int closed;
+    private final AtomicInteger claim;
+    private final long lastStart;
+    private final double lastOpen;
+    private final double lastHigh;
+    private final double lastLow;
+    private final double lastClose;
+
+    private Candles(CandleInterval interval, Closed candles, Candle last) {
+        this.interval = interval;
+        this.starts = candles.starts;
+        this.open = candles.open;
+        this.high = candles.high;
+        this.low = candles.low;
+        this.close = candles.close;
+        this.closed = candles.closed;
+        this.claim = candles.claim;
+        this.lastStart = last == null ? Long.MIN_VALUE : last.start;
+        this.lastOpen = last == null ? 0 : last.open;
+        this.lastHigh = last == null ? 0 : last.high;
+        this.lastLow = last == null ? 0 : last.low;
+        this.lastClose = last == null ? 0 : last.close;
+    }
+
+    /**
+     * the timestamps must be sorted ascending.
+     */
+    static Candles of(CandleInterval interval, long[] timestamps, double[] prices, int size) {
+        return new Candles(interval, new Closed(), null).append(timestamps, prices, 0, size);
+    }
+
+    /**
+     * @return the candles with the ticks [from, to) added. the timestamps must be sorted
+     * and not older than the ticks already added
+     */
+    Candles append(long[] timestamps, double[] prices, int from, int to) {
+        if (from >= to) {
+            return this;
+        }
+        long millis = interval.getMillis();
+        Closed candles = null;
+        Candle last = isEmpty() ? null : new Candle(lastStart, lastOpen, lastHigh, lastLow, lastClose);
+        long lastEnd = isEmpty() ? Long.MIN_VALUE : end(lastStart);
+        for (int i = from; i < to; i++) {
+            double price = prices[i];
+            if (timestamps[i] < lastEnd) {
+                last.high = Math.max(last.high, price);
+                last.low = Math.min(last.low, price);
+                last.close = price;
+                continue;
+            }
+            if (candles == null) {
+                candles = own();
+            }
+            if (last != null) {
+                candles.close(last);
+            }
+            long start = Math.floorDiv(timestamps[i], millis) * millis;
+            last = new Candle(start, price, price, price, price);
+            lastEnd = end(start);
+        }
+        if (candles == null) {
+            candles = new Closed(this);
+        } else {
+            candles.claim.set(candles.closed);
+        }
+        return new Candles(interval, candles, last);
+    }
+
+    /**
+     * @return end of the candle starting at the given time, exclusive. saturates at the end of the long range
+     */
+    private long end(long start) {
+        long millis = interval.getMillis();
+        return start > Long.MAX_VALUE - millis ? Long.MAX_VALUE : start + millis;
+    }
+
+    /**
+     * @return the shared arrays if no other candles have extended them, otherwise a copy
+     */
+    private Closed own() {
+        if (isEmpty()) {
+            return new Closed();
+        }
+        Closed candles = new Closed(this);
+        if (claim.compareAndSet(closed, Integer.MIN_VALUE)) {
+            return candles;
+        }
+        candles.copy(Math.max(INITIAL_CAPACITY, starts.length));
+        return candles;
+    }
+
+    private boolean isEmpty() {
+        return lastStart == Long.MIN_VALUE;
+    }
+
+    public CandleInterval interval() {
+        return interval;
+    }
+
+    public int size() {
+        return isEmpty() ? 0 : closed + 1;
+    }
+
+    /**
+     * @param start epoch millis
+     * @return index of the first candle starting at or after the given time, size() if there is none
+     */
+    public int lowerBound(long start) {
+        if (isEmpty() || start > lastStart) {
+            return size();
+        }
+        int index = Arrays.binarySearch(starts, 0, closed, start);
+        return index < 0 ? -index - 1 : index;
+    }
+
+    /**
+     * @return start of the candle, epoch millis
+     */
+    public long start(int index) {
+        return index == closed ? lastStart : starts[index];
+    }
+
+    public double open(int index) {
+        return index == closed ? lastOpen : open[index];
+    }
+
+    public double high(int index) {
+        return index == closed ? lastHigh : high[index];
+    }
+
+    public double low(int index) {
+        return index == closed ? lastLow : low[index];
+    }
+
+    public double close(int index) {
+        return index == closed ? lastClose : close[index];
+    }
+
+    long footprintBytes() {
+        return PriceSeries.OBJECT_BYTES + 5 * PriceSeries.ARRAY_HEADER_BYTES + 5L * Long.BYTES * starts.length;
+    }
+
+    /**
+     * the last candle while it is being extended.
+     */
+    private static final class Candle {
+        private final long start;
+        private final double open;
+        private double high;
+        private double low;
+        private double close;
+
+        private Candle(long start, double open, double high, double low, double close) {
+            this.start = start;
+            this.open = open;
+            this.high = high;
+            this.low = low;
+            this.close = close;
+        }
+    }
+
+    /**
+     * the closed candles while they are being extended.
+     */
+    private static final class Closed {
+        private long[] starts;
+        private double[] open;
+        private double[] high;
+        private double[] low;
+        private double[] close;
+        private int closed;
+        private AtomicInteger claim;
+
+        private Closed() {
+            starts = new long[0];
+            open = new double[0];
+            high = new double[0];
+            low = new double[0];
+            close = new double[0];
+            claim = new AtomicInteger(Integer.MIN_VALUE);
+        }
+
+        private Closed(Candles candles) {
+            starts = candles.starts;
+            open = candles.open;
+            high = candles.high;
+            low = candles.low;
+            close = candles.close;
+            closed = candles.closed;
+            claim = candles.claim;
+        }
+
+        /**
+         * stores the candle that is no longer the last one.
+         */
+        private void close(Candle candle) {
+            if (closed == starts.length) {
+                copy(Math.max(INITIAL_CAPACITY, starts.length * 2));
+            }
+            starts[closed] = candle.start;
+            open[closed] = candle.open;
+            high[closed] = candle.high;
+            low[closed] = candle.low;
+            close[closed] = candle.close;
+            closed++;
+        }
+
+        /**
+         * moves the closed candles to new arrays that are not shared with any other candles.
+         */
+        private void copy(int capacity) {
+            starts = Arrays.copyOf(starts, capacity);
+            open = Arrays.copyOf(open, capacity);
+            high = Arrays.copyOf(high, capacity);
+            low = Arrays.copyOf(low, capacity);
+            close = Arrays.copyOf(close, capacity);
+            claim = new AtomicInteger(Integer.MIN_VALUE);
+        }
+    }
+}
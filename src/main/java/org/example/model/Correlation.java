@@ -0,0 +1,15 @@
+package org.example.model;
+
+import java.util.List;
+
+/**
+ * pearson correlation of the log returns of several currencies on the same grid.
+ *
+ * @param interval the interval of the returns
+ * @param from start of the grid, epoch millis
+ * @param to end of the grid, epoch millis, exclusive
+ * @param currencies names of the currencies in the order of the matrix
+ * @param matrix the correlation of every pair of the currencies, see Returns.correlation()
+ */
+public record Correlation(CandleInterval interval, long from, long to, List<String> currencies, double[][] matrix) {
+}
@@ -0,0 +1,344 @@
+package org.example.model;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * per-day open, high, low, close prices of a series in a time zone.
+ * only the days with prices are stored. while the days span less than
+ * MAX_DENSE_SPAN a table indexed by the distance from the first day maps
+ * a day to its slot, so looking up a day is a single array probe.
+ * otherwise (e.g. a bogus timestamp far in the future) the days are binary searched.
+ * <p>
+ * the index is immutable. the closed days live in arrays shared with the
+ * extended indexes, which only write past the days visible here, while the last day,
+ * which can still get prices, is kept in the fields of every index.
+ */
+public final class DailyIndex {
+
+    /**
+     * returned by slot(LocalDate) when there are no prices for the day.
+     */
+    public static final int NO_DATA = -1;
+
+    private static final int MAX_DENSE_SPAN = 1 << 20;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final Instant MAX_INSTANT = Instant.ofEpochMilli(Long.MAX_VALUE);
+
+    private final ZoneId zone;
+    private final long[] epochDays;
+    private final double[] open;
+    private final double[] high;
+    private final double[] low;
+    private final double[] close;
+    private final int[] slotByDay;
+    private final int closed;
+    private final AtomicInteger claim;
+    private final long firstEpochDay;
+    private final long lastEpochDay;
+    private final long lastDayEnd;
+    private final double lastOpen;
+    private final double lastHigh;
+    private final double lastLow;
+    private final double lastClose;
+
+    private DailyIndex(ZoneId zone, Days days, Day last) {
+        this.zone = zone;
+        this.epochDays = days.epochDays;
+        this.open = days.open;
+        this.high = days.high;
+        this.low = days.low;
+        this.close = days.close;
+        this.slotByDay = days.slotByDay;
+        this.closed = days.closed;
+        this.claim = days.claim;
+        this.firstEpochDay = days.firstEpochDay;
+        this.lastEpochDay = last == null ? Long.MIN_VALUE : last.epochDay;
+        this.lastDayEnd = last == null ? Long.MIN_VALUE : last.end;
+        this.lastOpen = last == null ? 0 : last.open;
+        this.lastHigh = last == null ? 0 : last.high;
+        this.lastLow = last == null ? 0 : last.low;
+        this.lastClose = last == null ? 0 : last.close;
+    }
+
+    /**
+     * groups the ticks by the calendar day in the zone. the timestamps must be sorted ascending.
+     * LocalDate is created once per day, not per tick.
+     */
+    static DailyIndex of(long[] timestamps, double[] prices, int size, ZoneId zone) {
+        return new DailyIndex(zone, new Days(), null).append(timestamps, prices, 0, size);
+    }
+
+    /**
+     * groups the ticks by the calendar day in the zone without visiting every tick: the last tick of a day
+     * is binary searched in the timestamps and the high and low of the day are read from the range index.
+     * the timestamps must be sorted ascending.
+     */
+    static DailyIndex of(long[] timestamps, double[] prices, int size, RangeIndex rangeIndex, ZoneId zone) {
+        Days days = new Days();
+        Day last = null;
+        for (int first = 0; first < size; ) {
+            LocalDate day = Instant.ofEpochMilli(timestamps[first]).atZone(zone).toLocalDate();
+            long end = lastMilliOf(day, zone);
+            int next = upperBound(timestamps, first, size, end);
+            if (last != null) {
+                days.close(last);
+            }
+            last = new Day(day.toEpochDay(), end, prices[first], rangeIndex.max(prices, first, next),
+                rangeIndex.min(prices, first, next), prices[next - 1]);
+            days.open(last);
+            first = next;
+        }
+        days.claim.set(days.closed);
+        return new DailyIndex(zone, days, last);
+    }
+
+    /**
+     * @return index of the first tick in [from, to) after the given timestamp, to if there is none
+     */
+    private static int upperBound(long[] timestamps, int from, int to, long timestamp) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid] <= timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the index with the ticks [from, to) added. the timestamps must be sorted
+     * and not older than the ticks already indexed
+     */
+    DailyIndex append(long[] timestamps, double[] prices, int from, int to) {
+        if (from >= to) {
+            return this;
+        }
+        Days days = null;
+        Day last = isEmpty() ? null : new Day(lastEpochDay, lastDayEnd, lastOpen, lastHigh, lastLow, lastClose);
+        for (int i = from; i < to; i++) {
+            double price = prices[i];
+            if (last != null && timestamps[i] <= last.end) {
+                last.high = Math.max(last.high, price);
+                last.low = Math.min(last.low, price);
+                last.close = price;
+                continue;
+            }
+            if (days == null) {
+                days = own();
+            }
+            LocalDate day = Instant.ofEpochMilli(timestamps[i]).atZone(zone).toLocalDate();
+            if (last != null) {
+                days.close(last);
+            }
+            last = new Day(day.toEpochDay(), lastMilliOf(day, zone), price, price, price, price);
+            days.open(last);
+        }
+        if (days == null) {
+            days = new Days(this);
+        } else {
+            days.claim.set(days.closed);
+        }
+        return new DailyIndex(zone, days, last);
+    }
+
+    /**
+     * @return the shared arrays if no other index has extended them, otherwise a copy
+     */
+    private Days own() {
+        if (isEmpty()) {
+            return new Days();
+        }
+        Days days = new Days(this);
+        if (claim.compareAndSet(closed, Integer.MIN_VALUE)) {
+            return days;
+        }
+        days.copy(Math.max(INITIAL_CAPACITY, epochDays.length));
+        return days;
+    }
+
+    private static long lastMilliOf(LocalDate day, ZoneId zone) {
+        Instant nextDay = day.plusDays(1).atStartOfDay(zone).toInstant();
+        return nextDay.isAfter(MAX_INSTANT) ? Long.MAX_VALUE : nextDay.toEpochMilli() - 1;
+    }
+
+    private boolean isEmpty() {
+        return lastEpochDay == Long.MIN_VALUE;
+    }
+
+    /**
+     * @return the zone of the days
+     */
+    public ZoneId zone() {
+        return zone;
+    }
+
+    /**
+     * @param date the day
+     * @return position of the day to read the prices with, NO_DATA if there are no prices
+     */
+    public int slot(LocalDate date) {
+        long epochDay = date.toEpochDay();
+        if (epochDay == lastEpochDay) {
+            return closed;
+        }
+        if (isEmpty() || epochDay < firstEpochDay || epochDay > lastEpochDay) {
+            return NO_DATA;
+        }
+        if (slotByDay != null) {
+            return slotByDay[(int) (epochDay - firstEpochDay)];
+        }
+        int slot = Arrays.binarySearch(epochDays, 0, closed, epochDay);
+        return slot < 0 ? NO_DATA : slot;
+    }
+
+    public double open(int slot) {
+        return slot == closed ? lastOpen : open[slot];
+    }
+
+    public double high(int slot) {
+        return slot == closed ? lastHigh : high[slot];
+    }
+
+    public double low(int slot) {
+        return slot == closed ? lastLow : low[slot];
+    }
+
+    public double close(int slot) {
+        return slot == closed ? lastClose : close[slot];
+    }
+
+    long footprintBytes() {
+        return PriceSeries.OBJECT_BYTES + 5 * PriceSeries.ARRAY_HEADER_BYTES + 5L * Long.BYTES * epochDays.length
+            + (slotByDay == null ? 0 : PriceSeries.ARRAY_HEADER_BYTES + (long) Integer.BYTES * slotByDay.length);
+    }
+
+    /**
+     * the last day of an index while it is being extended.
+     */
+    private static final class Day {
+        private final long epochDay;
+        private final long end;
+        private final double open;
+        private double high;
+        private double low;
+        private double close;
+
+        private Day(long epochDay, long end, double open, double high, double low, double close) {
+            this.epochDay = epochDay;
+            this.end = end;
+            this.open = open;
+            this.high = high;
+            this.low = low;
+            this.close = close;
+        }
+    }
+
+    /**
+     * the closed days of an index while it is being extended.
+     */
+    private static final class Days {
+        private long[] epochDays;
+        private double[] open;
+        private double[] high;
+        private double[] low;
+        private double[] close;
+        private int[] slotByDay;
+        private int closed;
+        private AtomicInteger claim;
+        private long firstEpochDay;
+        private long lastEpochDay;
+        private boolean sparse;
+
+        private Days() {
+            epochDays = new long[0];
+            open = new double[0];
+            high = new double[0];
+            low = new double[0];
+            close = new double[0];
+            claim = new AtomicInteger(Integer.MIN_VALUE);
+            firstEpochDay = Long.MIN_VALUE;
+            lastEpochDay = Long.MIN_VALUE;
+        }
+
+        private Days(DailyIndex index) {
+            epochDays = index.epochDays;
+            open = index.open;
+            high = index.high;
+            low = index.low;
+            close = index.close;
+            slotByDay = index.slotByDay;
+            closed = index.closed;
+            claim = index.claim;
+            firstEpochDay = index.firstEpochDay;
+            lastEpochDay = index.lastEpochDay;
+            sparse = index.slotByDay == null && !index.isEmpty();
+        }
+
+        /**
+         * stores the day that is no longer the last one.
+         */
+        private void close(Day day) {
+            if (closed == epochDays.length) {
+                copy(Math.max(INITIAL_CAPACITY, epochDays.length * 2));
+            }
+            epochDays[closed] = day.epochDay;
+            open[closed] = day.open;
+            high[closed] = day.high;
+            low[closed] = day.low;
+            close[closed] = day.close;
+            closed++;
+        }
+
+        /**
+         * maps the new last day to its slot, which is the next one to close.
+         */
+        private void open(Day day) {
+            if (firstEpochDay == Long.MIN_VALUE) {
+                firstEpochDay = day.epochDay;
+            }
+            lastEpochDay = day.epochDay;
+            if (sparse) {
+                return;
+            }
+            long offset = day.epochDay - firstEpochDay;
+            if (offset >= MAX_DENSE_SPAN) {
+                sparse = true;
+                slotByDay = null;
+                return;
+            }
+            if (slotByDay == null || offset >= slotByDay.length) {
+                int length = slotByDay == null ? 0 : slotByDay.length;
+                int capacity = (int) Math.min(MAX_DENSE_SPAN, Math.max(offset + 1, Math.max(INITIAL_CAPACITY, length * 2L)));
+                slotByDay = slotByDay == null ? new int[capacity] : Arrays.copyOf(slotByDay, capacity);
+                Arrays.fill(slotByDay, length, capacity, NO_DATA);
+            }
+            slotByDay[(int) offset] = closed;
+        }
+
+        /**
+         * moves the closed days to new arrays that are not shared with any other index.
+         * the days after the last one may have been mapped by another index, they are cleared.
+         */
+        private void copy(int capacity) {
+            epochDays = Arrays.copyOf(epochDays, capacity);
+            open = Arrays.copyOf(open, capacity);
+            high = Arrays.copyOf(high, capacity);
+            low = Arrays.copyOf(low, capacity);
+            close = Arrays.copyOf(close, capacity);
+            if (slotByDay != null) {
+                slotByDay = slotByDay.clone();
+                int next = (int) (lastEpochDay - firstEpochDay + 1);
+                Arrays.fill(slotByDay, Math.min(next, slotByDay.length), slotByDay.length, NO_DATA);
+            }
+            claim = new AtomicInteger(Integer.MIN_VALUE);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.model;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * a batch of queries answered in one request.
+ *
+ * @param currencies names of the cryptos, all the cryptos if empty
+ * @param days the days to get the statistics and the crypto with the highest normalized range for, none if empty
+ * @param stats names of the statistics, one of STATS, all if empty
+ */
+public record PriceQuery(List<String> currencies, List<LocalDate> days, List<String> stats) {
+
+    public static final List<String> STATS = List.of("oldest", "newest", "min", "max", "normalized");
+}
@@ -0,0 +1,20 @@
+package org.example.model;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * the answer to a PriceQuery.
+ *
+ * @param currencies {currency name}: {statistics}, in the order of the query
+ * @param winners {day}: {the currency with the highest normalized range among the queried ones}
+ */
+public record PriceQueryResult(Map<String, CurrencyResult> currencies, Map<LocalDate, String> winners) {
+
+    /**
+     * @param stats {name of the statistic}: {value} for all the prices
+     * @param days {day}: {name of the statistic}: {value} for the prices of the day, days without prices are skipped
+     */
+    public record CurrencyResult(Map<String, Object> stats, Map<LocalDate, Map<String, Object>> days) {
+    }
+}
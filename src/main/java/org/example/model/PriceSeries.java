@@ -0,0 +1,461 @@
+package org.example.model;
+
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * immutable columnar price series of a single currency.
+ * the ticks are kept in two primitive arrays: epoch millis sorted ascending
+ * (without duplicates) and the prices at the same positions.
+ * the summary statistics, the daily index in the default time zone, the range index
+ * and the precomputed candles are calculated when the series is built.
+ * the daily indexes of other time zones and the candles that are not precomputed
+ * are built on the first use and cached with the series.
+ * <p>
+ * appending newer ticks does not copy the series: the arrays have spare capacity,
+ * the appended series writes past the ticks visible here and shares the arrays.
+ * a series is never changed, so it can be read without locks.
+ */
+public final class PriceSeries {
+
+    static final long ARRAY_HEADER_BYTES = 16;
+    static final long OBJECT_BYTES = 24;
+    public static final int MAX_CACHED_ZONES = 16;
+    private static final PriceSeries EMPTY = new PriceSeries(new long[0], new double[0], 0);
+
+    private final long[] timestamps;
+    private final double[] prices;
+    private final int size;
+    private final AtomicInteger claim;
+    private final PriceSummary summary;
+    private final DailyIndex dailyIndex;
+    private final RangeIndex rangeIndex;
+    private final Candles[] candles;
+    private final ConcurrentMap<CandleInterval, Candles> lazyCandles;
+    private final ConcurrentMap<ZoneId, DailyIndex> zoneIndexes;
+
+    private PriceSeries(long[] timestamps, double[] prices, int size) {
+        this(timestamps, prices, size, new AtomicInteger(size), PriceSummary.of(prices, size),
+            DailyIndex.of(timestamps, prices, size, ZoneId.systemDefault()), RangeIndex.of(prices, size),
+            candlesOf(timestamps, prices, size), new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+    }
+
+    private PriceSeries(long[] timestamps, double[] prices, int size, AtomicInteger claim, PriceSummary summary,
+                        DailyIndex dailyIndex, RangeIndex rangeIndex, Candles[] candles,
+                        ConcurrentMap<CandleInterval, Candles> lazyCandles,
+                        ConcurrentMap<ZoneId, DailyIndex> zoneIndexes) {
+        this.timestamps = timestamps;
+        this.prices = prices;
+        this.size = size;
+        this.claim = claim;
+        this.summary = summary;
+        this.dailyIndex = dailyIndex;
+        this.rangeIndex = rangeIndex;
+        this.candles = candles;
+        this.lazyCandles = lazyCandles;
+        this.zoneIndexes = zoneIndexes;
+    }
+
+    /**
+     * @return the precomputed candles by the ordinal of the interval, null for the other intervals
+     */
+    private static Candles[] candlesOf(long[] timestamps, double[] prices, int size) {
+        Candles[] result = new Candles[CandleInterval.values().length];
+        for (CandleInterval interval: CandleInterval.values()) {
+            if (interval.isPrecomputed()) {
+                result[interval.ordinal()] = Candles.of(interval, timestamps, prices, size);
+            }
+        }
+        return result;
+    }
+
+    public static PriceSeries empty() {
+        return EMPTY;
+    }
+
+    /**
+     * builds the series on the arrays without copying them, the caller must not change them.
+     *
+     * @param timestamps strictly ascending
+     * @param prices the price of every timestamp
+     * @param size number of ticks
+     */
+    public static PriceSeries of(long[] timestamps, double[] prices, int size) {
+        if (size > timestamps.length || size > prices.length) {
+            throw new IllegalArgumentException("size " + size + " exceeds the arrays");
+        }
+        for (int i = 1; i < size; i++) {
+            if (timestamps[i] <= timestamps[i - 1]) {
+                throw new IllegalArgumentException("timestamps are not strictly ascending at " + i);
+            }
+        }
+        return size == 0 ? EMPTY : new PriceSeries(timestamps, prices, size);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @param expectedSize number of ticks that will be added, the builder grows if there are more
+     */
+    public static Builder builder(int expectedSize) {
+        return new Builder(Math.max(expectedSize, 1));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long timestampAt(int index) {
+        return timestamps[index];
+    }
+
+    public double priceAt(int index) {
+        return prices[index];
+    }
+
+    public PriceSummary summary() {
+        return summary;
+    }
+
+    /**
+     * the min and max are read from the range index in O(log n), the ticks are not scanned.
+     *
+     * @param from epoch millis, inclusive
+     * @param to epoch millis, exclusive
+     * @return the summary of the ticks in [from, to), empty if there are none
+     */
+    public PriceSummary summary(long from, long to) {
+        int first = lowerBound(from);
+        int last = lowerBound(to);
+        if (first >= last) {
+            return PriceSummary.EMPTY;
+        }
+        return new PriceSummary(rangeIndex.min(prices, first, last), rangeIndex.max(prices, first, last),
+            prices[first], prices[last - 1]);
+    }
+
+    /**
+     * @return open, high, low, close prices per day in ZoneId.systemDefault()
+     */
+    public DailyIndex dailyIndex() {
+        return dailyIndex;
+    }
+
+    /**
+     * the index of a zone other than the one of dailyIndex() is built on the first call without visiting
+     * every tick: the days are binary searched in the timestamps and their high and low are read
+     * from the range index. the first MAX_CACHED_ZONES of them are kept and extended with the series.
+     *
+     * @param zone the time zone of the days, the zone of dailyIndex() if null
+     * @return open, high, low, close prices per day in the zone
+     */
+    public DailyIndex dailyIndex(ZoneId zone) {
+        if (zone == null || zone.equals(dailyIndex.zone())) {
+            return dailyIndex;
+        }
+        DailyIndex index = zoneIndexes.get(zone);
+        if (index != null) {
+            return index;
+        }
+        index = DailyIndex.of(timestamps, prices, size, rangeIndex, zone);
+        if (zoneIndexes.size() >= MAX_CACHED_ZONES) {
+            return index;
+        }
+        DailyIndex existing = zoneIndexes.putIfAbsent(zone, index);
+        return existing == null ? index : existing;
+    }
+
+    /**
+     * @return unmodifiable view of the daily indexes of the other zones built so far
+     */
+    public Map<ZoneId, DailyIndex> zoneIndexes() {
+        return Collections.unmodifiableMap(zoneIndexes);
+    }
+
+    /**
+     * the candles of an interval that is not precomputed are built from the ticks on the first call,
+     * kept with the series and extended with it.
+     *
+     * @return open, high, low, close prices per interval aligned to the epoch
+     */
+    public Candles candles(CandleInterval interval) {
+        Candles tier = candles[interval.ordinal()];
+        if (tier != null) {
+            return tier;
+        }
+        tier = lazyCandles.get(interval);
+        if (tier != null) {
+            return tier;
+        }
+        tier = Candles.of(interval, timestamps, prices, size);
+        Candles existing = lazyCandles.putIfAbsent(interval, tier);
+        return existing == null ? tier : existing;
+    }
+
+    /**
+     * @param timestamp epoch millis
+     * @return index of the first tick with the timestamp greater or equal to the given one,
+     * size() if there is no such tick
+     */
+    public int lowerBound(long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid] < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * adds the ticks of the builder to a new series, this one stays unchanged.
+     * ticks newer than the last one are appended to the shared arrays and the summary
+     * and the daily index are extended with them only. otherwise the series is rebuilt,
+     * a tick of the builder replaces a tick with the same timestamp.
+     *
+     * @param ticks the ticks to add, the builder must not be used afterwards
+     * @return the series with the ticks
+     */
+    public PriceSeries append(Builder ticks) {
+        ticks.sort();
+        int count = ticks.size;
+        if (count == 0) {
+            return this;
+        }
+        if (size == 0) {
+            return ticks.build();
+        }
+        if (ticks.timestamps[0] <= timestamps[size - 1]) {
+            Builder builder = new Builder(size + count);
+            System.arraycopy(timestamps, 0, builder.timestamps, 0, size);
+            System.arraycopy(prices, 0, builder.prices, 0, size);
+            builder.size = size;
+            return builder.addAll(ticks).build();
+        }
+
+        int newSize = size + count;
+        long[] newTimestamps = timestamps;
+        double[] newPrices = prices;
+        AtomicInteger newClaim = claim;
+        if (newSize > timestamps.length || !claim.compareAndSet(size, newSize)) {
+            // another series already appended to the arrays or there is no space left
+            int capacity = Math.max(newSize, size + (size >> 1));
+            newTimestamps = Arrays.copyOf(timestamps, capacity);
+            newPrices = Arrays.copyOf(prices, capacity);
+            newClaim = new AtomicInteger(newSize);
+        }
+        System.arraycopy(ticks.timestamps, 0, newTimestamps, size, count);
+        System.arraycopy(ticks.prices, 0, newPrices, size, count);
+
+        return new PriceSeries(newTimestamps, newPrices, newSize, newClaim,
+            summary.append(ticks.prices, count),
+            dailyIndex.append(newTimestamps, newPrices, size, newSize),
+            rangeIndex.append(newPrices, newSize),
+            appendCandles(newTimestamps, newPrices, newSize),
+            appendLazyCandles(newTimestamps, newPrices, newSize),
+            appendZoneIndexes(newTimestamps, newPrices, newSize));
+    }
+
+    private ConcurrentMap<CandleInterval, Candles> appendLazyCandles(long[] newTimestamps, double[] newPrices,
+                                                                    int newSize) {
+        ConcurrentMap<CandleInterval, Candles> result = new ConcurrentHashMap<>();
+        for (Map.Entry<CandleInterval, Candles> tier: lazyCandles.entrySet()) {
+            result.put(tier.getKey(), tier.getValue().append(newTimestamps, newPrices, size, newSize));
+        }
+        return result;
+    }
+
+    private ConcurrentMap<ZoneId, DailyIndex> appendZoneIndexes(long[] newTimestamps, double[] newPrices, int newSize) {
+        ConcurrentMap<ZoneId, DailyIndex> result = new ConcurrentHashMap<>();
+        for (Map.Entry<ZoneId, DailyIndex> index: zoneIndexes.entrySet()) {
+            result.put(index.getKey(), index.getValue().append(newTimestamps, newPrices, size, newSize));
+        }
+        return result;
+    }
+
+    private Candles[] appendCandles(long[] newTimestamps, double[] newPrices, int newSize) {
+        Candles[] result = new Candles[candles.length];
+        for (int i = 0; i < candles.length; i++) {
+            result[i] = candles[i] == null ? null : candles[i].append(newTimestamps, newPrices, size, newSize);
+        }
+        return result;
+    }
+
+    /**
+     * approximate heap footprint of the series: the object itself, both arrays and the indexes,
+     * including the cached indexes of other zones and the candles built on the first use.
+     *
+     * @return size in bytes
+     */
+    public long footprintBytes() {
+        return OBJECT_BYTES
+            + ARRAY_HEADER_BYTES + (long) Long.BYTES * timestamps.length
+            + ARRAY_HEADER_BYTES + (long) Double.BYTES * prices.length
+            + dailyIndex.footprintBytes()
+            + rangeIndex.footprintBytes()
+            + candlesFootprintBytes()
+            + zoneIndexesFootprintBytes();
+    }
+
+    private long zoneIndexesFootprintBytes() {
+        long bytes = 0;
+        for (DailyIndex index: zoneIndexes.values()) {
+            bytes += OBJECT_BYTES + index.footprintBytes();
+        }
+        return bytes;
+    }
+
+    private long candlesFootprintBytes() {
+        long bytes = ARRAY_HEADER_BYTES + (long) Long.BYTES * candles.length;
+        for (Candles tier: candles) {
+            if (tier != null) {
+                bytes += tier.footprintBytes();
+            }
+        }
+        for (Candles tier: lazyCandles.values()) {
+            bytes += OBJECT_BYTES + tier.footprintBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * collects ticks in any order. if a timestamp is added more than once
+     * the price added last wins, like for Map.put.
+     */
+    public static final class Builder {
+
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private long[] timestamps;
+        private double[] prices;
+        private int size;
+        private boolean sorted = true;
+
+        private Builder() {
+            this(INITIAL_CAPACITY);
+        }
+
+        private Builder(int capacity) {
+            timestamps = new long[capacity];
+            prices = new double[capacity];
+        }
+
+        public Builder add(long timestamp, double price) {
+            ensureCapacity(size + 1);
+            if (size > 0 && timestamp <= timestamps[size - 1]) {
+                sorted = false;
+            }
+            timestamps[size] = timestamp;
+            prices[size] = price;
+            size++;
+            return this;
+        }
+
+        /**
+         * appends all the ticks of the other builder after the ticks of this one,
+         * as if they were added here in the same order.
+         */
+        public Builder addAll(Builder other) {
+            if (other.size == 0) {
+                return this;
+            }
+            ensureCapacity(size + other.size);
+            if (!other.sorted || size > 0 && other.timestamps[0] <= timestamps[size - 1]) {
+                sorted = false;
+            }
+            System.arraycopy(other.timestamps, 0, timestamps, size, other.size);
+            System.arraycopy(other.prices, 0, prices, size, other.size);
+            size += other.size;
+            return this;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > timestamps.length) {
+                int newCapacity = Math.max(capacity, timestamps.length + (timestamps.length >> 1));
+                timestamps = Arrays.copyOf(timestamps, newCapacity);
+                prices = Arrays.copyOf(prices, newCapacity);
+            }
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public PriceSeries build() {
+            sort();
+            if (size == 0) {
+                return EMPTY;
+            }
+            return new PriceSeries(Arrays.copyOf(timestamps, size), Arrays.copyOf(prices, size), size);
+        }
+
+        /**
+         * sorts the ticks by the timestamp, keeping the last added price of a duplicate timestamp.
+         */
+        private void sort() {
+            if (sorted) {
+                return;
+            }
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            // merge sort is stable, so among equal timestamps the last added one stays last
+            mergeSort(order, new int[size], 0, size);
+
+            long[] sortedTimestamps = new long[size];
+            double[] sortedPrices = new double[size];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                long timestamp = timestamps[order[i]];
+                if (count > 0 && sortedTimestamps[count - 1] == timestamp) {
+                    count--;
+                }
+                sortedTimestamps[count] = timestamp;
+                sortedPrices[count] = prices[order[i]];
+                count++;
+            }
+            timestamps = sortedTimestamps;
+            prices = sortedPrices;
+            size = count;
+            sorted = true;
+        }
+
+        private void mergeSort(int[] order, int[] buffer, int from, int to) {
+            if (to - from < 2) {
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            mergeSort(order, buffer, from, mid);
+            mergeSort(order, buffer, mid, to);
+            if (timestamps[order[mid - 1]] <= timestamps[order[mid]]) {
+                return;
+            }
+            System.arraycopy(order, from, buffer, from, to - from);
+            int left = from;
+            int right = mid;
+            for (int i = from; i < to; i++) {
+                if (right >= to || left < mid && timestamps[buffer[left]] <= timestamps[buffer[right]]) {
+                    order[i] = buffer[left++];
+                } else {
+                    order[i] = buffer[right++];
+                }
+            }
+        }
+    }
+}
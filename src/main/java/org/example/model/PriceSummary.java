@@ -0,0 +1,109 @@
+package org.example.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * immutable statistics of a price series: min, max, oldest, newest prices
+ * and the normalized range (i.e. (max-min)/min).
+ * calculated once when the series is built, so reading it costs nothing.
+ */
+public final class PriceSummary {
+
+    static final PriceSummary EMPTY = new PriceSummary(null, null, null, null);
+
+    private final Double min;
+    private final Double max;
+    private final Double oldest;
+    private final Double newest;
+    private final double normalizedRange;
+    private final Map<String, Double> stat;
+
+    PriceSummary(Double min, Double max, Double oldest, Double newest) {
+        this.min = min;
+        this.max = max;
+        this.oldest = oldest;
+        this.newest = newest;
+        this.normalizedRange = min == null ? 0 : normalizedRange(min, max);
+
+        Map<String, Double> map = new HashMap<>();
+        map.put("max", max);
+        map.put("min", min);
+        map.put("oldest", oldest);
+        map.put("newest", newest);
+        this.stat = Collections.unmodifiableMap(map);
+    }
+
+    static PriceSummary of(double[] prices, int size) {
+        if (size == 0) {
+            return EMPTY;
+        }
+        double min = prices[0];
+        double max = prices[0];
+        for (int i = 1; i < size; i++) {
+            min = Math.min(min, prices[i]);
+            max = Math.max(max, prices[i]);
+        }
+        return new PriceSummary(min, max, prices[0], prices[size - 1]);
+    }
+
+    /**
+     * @return the summary of the series with the newer prices appended, calculated from the new prices only
+     */
+    PriceSummary append(double[] prices, int size) {
+        if (size == 0) {
+            return this;
+        }
+        double newMin = isEmpty() ? prices[0] : min;
+        double newMax = isEmpty() ? prices[0] : max;
+        for (int i = 0; i < size; i++) {
+            newMin = Math.min(newMin, prices[i]);
+            newMax = Math.max(newMax, prices[i]);
+        }
+        return new PriceSummary(newMin, newMax, isEmpty() ? prices[0] : oldest, prices[size - 1]);
+    }
+
+    /**
+     * calculated in double without rounding, the rounding is up to the serialization.
+     *
+     * @return (max-min)/min, zero if the min price is zero
+     */
+    public static double normalizedRange(double min, double max) {
+        return min == 0 ? 0 : (max - min) / min;
+    }
+
+    public boolean isEmpty() {
+        return min == null;
+    }
+
+    public Double getMin() {
+        return min;
+    }
+
+    public Double getMax() {
+        return max;
+    }
+
+    public Double getOldest() {
+        return oldest;
+    }
+
+    public Double getNewest() {
+        return newest;
+    }
+
+    /**
+     * @return (max-min)/min, zero if there are no prices or the min price is zero
+     */
+    public double getNormalizedRange() {
+        return normalizedRange;
+    }
+
+    /**
+     * @return unmodifiable map: {name of the statistic}: {value in double}
+     */
+    public Map<String, Double> getStat() {
+        return stat;
+    }
+}
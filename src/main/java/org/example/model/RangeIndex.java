@@ -0,0 +1,161 @@
+package org.example.model;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * min and max price of any range of ticks of a series in O(log n).
+ * the ticks are grouped into blocks of BLOCK_SIZE, level 0 keeps the min and max of every block
+ * and level j of every 2^j blocks aligned to 2^j. a range is answered by scanning the ticks
+ * of the partial blocks at its ends and combining at most two nodes per level in between.
+ * only the complete blocks are indexed, so the index takes about 4 / BLOCK_SIZE of the size of the prices.
+ * <p>
+ * the index is immutable. the level arrays are shared with the extended indexes,
+ * which only write past the nodes visible here.
+ */
+public final class RangeIndex {
+
+    private static final int BLOCK_SHIFT = 6;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final RangeIndex EMPTY = new RangeIndex(new double[0][], new double[0][], 0,
+        new AtomicInteger(0));
+
+    private final double[][] min;
+    private final double[][] max;
+    private final int blocks;
+    private final AtomicInteger claim;
+
+    private RangeIndex(double[][] min, double[][] max, int blocks, AtomicInteger claim) {
+        this.min = min;
+        this.max = max;
+        this.blocks = blocks;
+        this.claim = claim;
+    }
+
+    static RangeIndex of(double[] prices, int size) {
+        return EMPTY.append(prices, size);
+    }
+
+    /**
+     * @param prices the prices of the extended series, the first ones must be the prices indexed here
+     * @param size size of the extended series
+     * @return the index of the extended series
+     */
+    RangeIndex append(double[] prices, int size) {
+        int newBlocks = size >> BLOCK_SHIFT;
+        if (newBlocks <= blocks) {
+            return this;
+        }
+        // the level arrays are written past the nodes of this index, if no other index did it already
+        boolean shared = blocks > 0 && claim.compareAndSet(blocks, Integer.MIN_VALUE);
+        int levels = 32 - Integer.numberOfLeadingZeros(newBlocks);
+        double[][] newMin = Arrays.copyOf(min, levels);
+        double[][] newMax = Arrays.copyOf(max, levels);
+        for (int level = 0; level < levels; level++) {
+            int nodes = newBlocks >> level;
+            int length = newMin[level] == null ? 0 : newMin[level].length;
+            if (!shared || nodes > length) {
+                int capacity = Math.max(nodes, Math.max(INITIAL_CAPACITY, length * 2));
+                newMin[level] = newMin[level] == null ? new double[capacity] : Arrays.copyOf(newMin[level], capacity);
+                newMax[level] = newMax[level] == null ? new double[capacity] : Arrays.copyOf(newMax[level], capacity);
+            }
+        }
+
+        for (int block = blocks; block < newBlocks; block++) {
+            int from = block << BLOCK_SHIFT;
+            double blockMin = prices[from];
+            double blockMax = prices[from];
+            for (int i = from + 1; i < from + BLOCK_SIZE; i++) {
+                blockMin = Math.min(blockMin, prices[i]);
+                blockMax = Math.max(blockMax, prices[i]);
+            }
+            newMin[0][block] = blockMin;
+            newMax[0][block] = blockMax;
+            // the nodes of the higher levels that end with this block are complete now
+            int node = block;
+            for (int level = 1; level < levels && (node & 1) == 1; level++) {
+                node >>= 1;
+                newMin[level][node] = Math.min(newMin[level - 1][2 * node], newMin[level - 1][2 * node + 1]);
+                newMax[level][node] = Math.max(newMax[level - 1][2 * node], newMax[level - 1][2 * node + 1]);
+            }
+        }
+        AtomicInteger newClaim = shared ? claim : new AtomicInteger();
+        newClaim.set(newBlocks);
+        return new RangeIndex(newMin, newMax, newBlocks, newClaim);
+    }
+
+    /**
+     * @return the min price of the ticks [from, to), the range must not be empty
+     */
+    double min(double[] prices, int from, int to) {
+        int firstBlock = (from + BLOCK_SIZE - 1) >> BLOCK_SHIFT;
+        int lastBlock = Math.min(to >> BLOCK_SHIFT, blocks);
+        if (firstBlock >= lastBlock) {
+            return scanMin(prices, from, to, Double.POSITIVE_INFINITY);
+        }
+        double result = scanMin(prices, from, firstBlock << BLOCK_SHIFT, Double.POSITIVE_INFINITY);
+        result = scanMin(prices, lastBlock << BLOCK_SHIFT, to, result);
+        int left = firstBlock;
+        int right = lastBlock;
+        for (int level = 0; left < right; level++) {
+            if ((left & 1) == 1) {
+                result = Math.min(result, min[level][left++]);
+            }
+            if ((right & 1) == 1) {
+                result = Math.min(result, min[level][--right]);
+            }
+            left >>= 1;
+            right >>= 1;
+        }
+        return result;
+    }
+
+    /**
+     * @return the max price of the ticks [from, to), the range must not be empty
+     */
+    double max(double[] prices, int from, int to) {
+        int firstBlock = (from + BLOCK_SIZE - 1) >> BLOCK_SHIFT;
+        int lastBlock = Math.min(to >> BLOCK_SHIFT, blocks);
+        if (firstBlock >= lastBlock) {
+            return scanMax(prices, from, to, Double.NEGATIVE_INFINITY);
+        }
+        double result = scanMax(prices, from, firstBlock << BLOCK_SHIFT, Double.NEGATIVE_INFINITY);
+        result = scanMax(prices, lastBlock << BLOCK_SHIFT, to, result);
+        int left = firstBlock;
+        int right = lastBlock;
+        for (int level = 0; left < right; level++) {
+            if ((left & 1) == 1) {
+                result = Math.max(result, max[level][left++]);
+            }
+            if ((right & 1) == 1) {
+                result = Math.max(result, max[level][--right]);
+            }
+            left >>= 1;
+            right >>= 1;
+        }
+        return result;
+    }
+
+    private static double scanMin(double[] prices, int from, int to, double result) {
+        for (int i = from; i < to; i++) {
+            result = Math.min(result, prices[i]);
+        }
+        return result;
+    }
+
+    private static double scanMax(double[] prices, int from, int to, double result) {
+        for (int i = from; i < to; i++) {
+            result = Math.max(result, prices[i]);
+        }
+        return result;
+    }
+
+    long footprintBytes() {
+        long bytes = PriceSeries.OBJECT_BYTES + 2 * PriceSeries.ARRAY_HEADER_BYTES;
+        for (int level = 0; level < min.length; level++) {
+            bytes += 2 * (PriceSeries.ARRAY_HEADER_BYTES + (long) Double.BYTES * min[level].length);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,268 @@
+package org.example.model;
+
+import java.util.List;
+
+/**
+ * log returns of the close prices of a series on a grid of the candle starts in [from, to).
+ * a grid point without a candle keeps the close of the last candle before it, so the returns
+ * of several series on the same grid are aligned. the returns before the first price are not defined.
+ * <p>
+ * the mean and the standard deviation are calculated in one pass with Welford's algorithm,
+ * the rolling standard deviation in one pass with the sliding window variant of it.
+ */
+public final class Returns {
+
+    private final CandleInterval interval;
+    private final long start;
+    private final double[] closes;
+    private final double[] values;
+    private final int first;
+    private final double mean;
+    private final double variance;
+
+    private Returns(CandleInterval interval, long start, double[] closes, double[] values, int first) {
+        this.interval = interval;
+        this.start = start;
+        this.closes = closes;
+        this.values = values;
+        this.first = first;
+
+        double mean = 0;
+        double m2 = 0;
+        int count = 0;
+        for (int i = first; i < values.length; i++) {
+            double delta = values[i] - mean;
+            count++;
+            mean += delta / count;
+            m2 += delta * (values[i] - mean);
+        }
+        this.mean = count == 0 ? Double.NaN : mean;
+        this.variance = count < 2 ? Double.NaN : m2 / (count - 1);
+    }
+
+    /**
+     * @param from epoch millis, inclusive, rounded down to the interval
+     * @param to epoch millis, exclusive
+     * @return number of the grid points of the range
+     */
+    public static long points(CandleInterval interval, long from, long to) {
+        long millis = interval.getMillis();
+        long start = Math.floorDiv(from, millis) * millis;
+        return to <= start ? 0 : (to - start - 1) / millis + 1;
+    }
+
+    /**
+     * @param candles the candles of the series
+     * @param from epoch millis, inclusive, rounded down to the interval of the candles
+     * @param to epoch millis, exclusive
+     */
+    public static Returns of(Candles candles, long from, long to) {
+        CandleInterval interval = candles.interval();
+        long millis = interval.getMillis();
+        long start = Math.floorDiv(from, millis) * millis;
+        int points = Math.toIntExact(points(interval, from, to));
+
+        double[] closes = new double[points];
+        int candle = candles.lowerBound(start);
+        double close = candle > 0 ? candles.close(candle - 1) : Double.NaN;
+        for (int i = 0; i < points; i++) {
+            long time = start + i * millis;
+            while (candle < candles.size() && candles.start(candle) <= time) {
+                close = candles.close(candle++);
+            }
+            closes[i] = close;
+        }
+
+        // the return i is between the closes i and i + 1
+        double[] values = new double[Math.max(points - 1, 0)];
+        int first = 0;
+        while (first < points && Double.isNaN(closes[first])) {
+            first++;
+        }
+        for (int i = first; i < values.length; i++) {
+            values[i] = closes[i] > 0 && closes[i + 1] > 0 ? Math.log(closes[i + 1] / closes[i]) : 0;
+        }
+        return new Returns(interval, start, closes, values, Math.min(first, values.length));
+    }
+
+    public CandleInterval interval() {
+        return interval;
+    }
+
+    /**
+     * @return number of the returns, one less than the grid points
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * @return index of the first defined return, size() if there is none
+     */
+    public int first() {
+        return first;
+    }
+
+    /**
+     * @return end of the return, the start of the later grid point, epoch millis
+     */
+    public long time(int index) {
+        return start + (index + 1) * interval.getMillis();
+    }
+
+    /**
+     * @return the close price at the end of the return
+     */
+    public double close(int index) {
+        return closes[index + 1];
+    }
+
+    /**
+     * @return the log return, 0 if a price is not positive. not defined before first()
+     */
+    public double value(int index) {
+        return values[index];
+    }
+
+    /**
+     * @return mean of the defined returns, NaN if there are none
+     */
+    public double mean() {
+        return mean;
+    }
+
+    /**
+     * @return sample standard deviation of the defined returns, NaN if there are less than two
+     */
+    public double standardDeviation() {
+        return Math.sqrt(variance);
+    }
+
+    /**
+     * @param window number of the returns, at least 2
+     * @return sample standard deviation of the window of returns ending at every index,
+     * NaN while the window has undefined returns
+     */
+    public double[] rollingStandardDeviation(int window) {
+        if (window < 2) {
+            throw new IllegalArgumentException("window " + window + " is less than 2");
+        }
+        double[] result = new double[values.length];
+        double mean = 0;
+        double m2 = 0;
+        int count = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (i < first) {
+                result[i] = Double.NaN;
+                continue;
+            }
+            double value = values[i];
+            if (count < window) {
+                count++;
+                double delta = value - mean;
+                mean += delta / count;
+                m2 += delta * (value - mean);
+            } else {
+                double removed = values[i - window];
+                double newMean = mean + (value - removed) / window;
+                m2 += (value - removed) * (value - newMean + removed - mean);
+                mean = newMean;
+            }
+            result[i] = count < window ? Double.NaN : Math.sqrt(Math.max(m2, 0) / (window - 1));
+        }
+        return result;
+    }
+
+    /**
+     * pearson correlation of every pair of the returns over the returns defined in both.
+     * the returns are standardized once, then a pair costs one dot product of two arrays,
+     * plus the sums of the part that only the earlier starting returns have.
+     *
+     * @param returns the returns on the same grid
+     * @return the symmetric matrix in the order of the returns, NaN for a pair with less than
+     * two common returns or with returns that do not change
+     */
+    public static double[][] correlation(List<Returns> returns) {
+        int count = returns.size();
+        double[][] standardized = new double[count][];
+        double[] sums = new double[count];
+        double[] squares = new double[count];
+        for (int i = 0; i < count; i++) {
+            Returns series = returns.get(i);
+            if (i > 0 && (series.start != returns.get(0).start || series.size() != returns.get(0).size()
+                || series.interval != returns.get(0).interval)) {
+                throw new IllegalArgumentException("the returns are not on the same grid");
+            }
+            double deviation = series.standardDeviation();
+            if (!(deviation > 0)) {
+                continue;
+            }
+            double[] z = new double[series.size()];
+            for (int t = series.first; t < z.length; t++) {
+                z[t] = (series.values[t] - series.mean) / deviation;
+                sums[i] += z[t];
+                squares[i] += z[t] * z[t];
+            }
+            standardized[i] = z;
+        }
+
+        double[][] matrix = new double[count][count];
+        for (int i = 0; i < count; i++) {
+            for (int j = i; j < count; j++) {
+                double value = correlation(returns.get(i).first, standardized[i], sums[i], squares[i],
+                    returns.get(j).first, standardized[j], sums[j], squares[j]);
+                matrix[i][j] = value;
+                matrix[j][i] = value;
+            }
+        }
+        return matrix;
+    }
+
+    private static double correlation(int firstX, double[] x, double sumX, double squaresX,
+                                      int firstY, double[] y, double sumY, double squaresY) {
+        if (x == null || y == null) {
+            return Double.NaN;
+        }
+        int from = Math.max(firstX, firstY);
+        double n = x.length - from;
+        if (n < 2) {
+            return Double.NaN;
+        }
+        // the sums of the earlier starting returns without the part before the other ones start
+        for (int t = firstX; t < from; t++) {
+            sumX -= x[t];
+            squaresX -= x[t] * x[t];
+        }
+        for (int t = firstY; t < from; t++) {
+            sumY -= y[t];
+            squaresY -= y[t] * y[t];
+        }
+        double covariance = dot(x, y, from, x.length) - sumX * sumY / n;
+        double denominator = Math.sqrt((squaresX - sumX * sumX / n) * (squaresY - sumY * sumY / n));
+        if (!(denominator > 0)) {
+            return Double.NaN;
+        }
+        return Math.max(-1, Math.min(1, covariance / denominator));
+    }
+
+    /**
+     * four independent sums, so the multiplications of the loop do not wait for each other.
+     */
+    private static double dot(double[] x, double[] y, int from, int to) {
+        double sum0 = 0;
+        double sum1 = 0;
+        double sum2 = 0;
+        double sum3 = 0;
+        int i = from;
+        for (; i + 3 < to; i += 4) {
+            sum0 += x[i] * y[i];
+            sum1 += x[i + 1] * y[i + 1];
+            sum2 += x[i + 2] * y[i + 2];
+            sum3 += x[i + 3] * y[i + 3];
+        }
+        for (; i < to; i++) {
+            sum0 += x[i] * y[i];
+        }
+        return (sum0 + sum1) + (sum2 + sum3);
+    }
+}
@@ -0,0 +1,10 @@
+package org.example.model;
+
+/**
+ * a price of a currency at a moment.
+ *
+ * @param timestamp epoch millis
+ * @param price price at the timestamp
+ */
+public record Tick(long timestamp, double price) {
+}
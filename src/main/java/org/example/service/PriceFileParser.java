@@ -0,0 +1,396 @@
+package org.example.service;
+
+import org.example.model.PriceSeries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * parses the rows of a {CRYPTO_NAME}_values.csv file straight from a memory mapped buffer.
+ * the timestamp and the price are read from the bytes, no String is created per row
+ * and malformed rows are detected without exceptions.
+ * a row is accepted the same way as String.split(",") + Long.parseLong + Double.parseDouble
+ * did, except that NaN, Infinity and hexadecimal prices are treated as malformed.
+ */
+final class PriceFileParser {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PriceFileParser.class);
+    private static final long MAX_WINDOW = 1L << 30;
+    private static final int MAX_EXACT_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final String currency;
+    private final byte[] symbol;
+    private int rows;
+    private int malformedRows;
+    private int unknownRows;
+
+    PriceFileParser(String currency) {
+        this.currency = currency;
+        this.symbol = currency.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * counters of a parsed file.
+     *
+     * @param rows rows of the currency added to the series
+     * @param malformedRows rows with a malformed timestamp or price
+     * @param unknownRows rows with unknown structure, including the header
+     * @param bytesRead size of the parsed part of the file
+     */
+    record Result(int rows, int malformedRows, int unknownRows, long bytesRead) {
+    }
+
+    /**
+     * parses the part of the file between the offsets. the part must start at the beginning of a line.
+     * the file is mapped in windows, so files bigger than 2 GB are supported.
+     *
+     * @param channel opened file
+     * @param from offset of the first byte
+     * @param to offset after the last byte
+     * @param builder the accepted rows are added to
+     */
+    Result parse(FileChannel channel, long from, long to, PriceSeries.Builder builder) throws IOException {
+        long position = from;
+        while (position < to) {
+            long length = Math.min(to - position, MAX_WINDOW);
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            int limit = (int) length;
+            int lineStart = 0;
+            for (int i = 0; i < limit; i++) {
+                if (buffer.get(i) == '\n') {
+                    parseLine(buffer, lineStart, i, builder);
+                    lineStart = i + 1;
+                }
+            }
+            if (position + length == to) {
+                if (lineStart < limit) {
+                    parseLine(buffer, lineStart, limit, builder);
+                }
+                position = to;
+            } else if (lineStart == 0) {
+                LOGGER.error("the {} price csv file has a row longer than {} bytes", currency, MAX_WINDOW);
+                break;
+            } else {
+                // the last line of the window is incomplete, the next window starts with it
+                position += lineStart;
+            }
+        }
+        return new Result(rows, malformedRows, unknownRows, position - from);
+    }
+
+    /**
+     * splits the part of the file into chunks at line boundaries and parses them with fork-join.
+     * the rows of the chunks are merged in the file order, so the built series is the same
+     * as after parse(), including which price wins for a duplicate timestamp.
+     *
+     * @param chunkSize approximate size of a chunk in bytes
+     */
+    Result parseParallel(FileChannel channel, long from, long to, long chunkSize, PriceSeries.Builder builder)
+        throws IOException {
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(from);
+        long position = from;
+        while (to - position > chunkSize) {
+            position = nextLineStart(channel, position + chunkSize, to);
+            bounds.add(position);
+        }
+        if (position < to) {
+            bounds.add(to);
+        }
+        if (bounds.size() < 2) {
+            return new Result(rows, malformedRows, unknownRows, 0);
+        }
+
+        ChunkResult result = ForkJoinPool.commonPool().invoke(new ChunkTask(channel, bounds, 0, bounds.size() - 1));
+        if (result.error != null) {
+            throw result.error;
+        }
+        builder.addAll(result.builder);
+        rows += result.parser.rows;
+        malformedRows += result.parser.malformedRows;
+        unknownRows += result.parser.unknownRows;
+        return new Result(rows, malformedRows, unknownRows, to - from);
+    }
+
+    /**
+     * finds the end of the last complete line, a file that is being appended to
+     * may end with a partly written line.
+     *
+     * @return offset right after the last line break between the offsets, from if there is none
+     */
+    static long lastLineEnd(FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long end = to;
+        while (end > from) {
+            long offset = Math.max(from, end - buffer.capacity());
+            buffer.clear().limit((int) (end - offset));
+            int read = channel.read(buffer, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = read - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            end = offset;
+        }
+        return from;
+    }
+
+    /**
+     * @return offset right after the first line break at or after position - 1, to if there is none
+     */
+    private static long nextLineStart(FileChannel channel, long position, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long offset = position - 1;
+        while (offset < to) {
+            buffer.clear();
+            int read = channel.read(buffer, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read && offset + i < to; i++) {
+                if (buffer.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return to;
+    }
+
+    /**
+     * parses the chunks between the bounds [first, last), splitting the range in halves.
+     */
+    private final class ChunkTask extends RecursiveTask<ChunkResult> {
+
+        private final FileChannel channel;
+        private final List<Long> bounds;
+        private final int first;
+        private final int last;
+
+        private ChunkTask(FileChannel channel, List<Long> bounds, int first, int last) {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected ChunkResult compute() {
+            if (last - first == 1) {
+                PriceFileParser parser = new PriceFileParser(currency);
+                PriceSeries.Builder chunk = PriceSeries.builder();
+                try {
+                    parser.parse(channel, bounds.get(first), bounds.get(last), chunk);
+                    return new ChunkResult(parser, chunk, null);
+                } catch (IOException e) {
+                    return new ChunkResult(parser, chunk, e);
+                }
+            }
+            int middle = (first + last) >>> 1;
+            ChunkTask right = new ChunkTask(channel, bounds, middle, last);
+            right.fork();
+            ChunkResult left = new ChunkTask(channel, bounds, first, middle).compute();
+            return left.merge(right.join());
+        }
+    }
+
+    private record ChunkResult(PriceFileParser parser, PriceSeries.Builder builder, IOException error) {
+
+        /**
+         * the right chunk follows the left one in the file.
+         */
+        ChunkResult merge(ChunkResult right) {
+            parser.rows += right.parser.rows;
+            parser.malformedRows += right.parser.malformedRows;
+            parser.unknownRows += right.parser.unknownRows;
+            return new ChunkResult(parser, builder.addAll(right.builder), error != null ? error : right.error);
+        }
+    }
+
+    private void parseLine(ByteBuffer buffer, int start, int end, PriceSeries.Builder builder) {
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        // String.split drops the trailing empty tokens
+        while (end > start && buffer.get(end - 1) == ',') {
+            end--;
+        }
+        int firstComma = indexOfComma(buffer, start, end);
+        int secondComma = firstComma < 0 ? -1 : indexOfComma(buffer, firstComma + 1, end);
+        if (secondComma < 0 || indexOfComma(buffer, secondComma + 1, end) >= 0
+            || firstComma == start || !isDigit(buffer.get(start))) {
+            unknownRows++;
+            LOGGER.warn("the {} price csv file has unknown structure", currency);
+            return;
+        }
+
+        long timestamp = parseTimestamp(buffer, start, firstComma);
+        double price = parsePrice(buffer, secondComma + 1, end);
+        if (timestamp < 0 || Double.isNaN(price)) {
+            malformedRows++;
+            LOGGER.warn("in the {} price file there is a row with malformed timestamp or price", currency);
+            return;
+        }
+        if (isSymbol(buffer, firstComma + 1, secondComma)) {
+            builder.add(timestamp, price);
+            rows++;
+        }
+    }
+
+    private static int indexOfComma(ByteBuffer buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == ',') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private boolean isSymbol(ByteBuffer buffer, int from, int to) {
+        if (to - from != symbol.length) {
+            return false;
+        }
+        for (int i = 0; i < symbol.length; i++) {
+            if (buffer.get(from + i) != symbol[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the timestamp, -1 if it is not a number or does not fit into long
+     */
+    private static long parseTimestamp(ByteBuffer buffer, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            byte b = buffer.get(i);
+            if (!isDigit(b)) {
+                return -1;
+            }
+            int digit = b - '0';
+            if (value > (Long.MAX_VALUE - digit) / 10) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * parses [+-]digits[.digits][(e|E)[+-]digits][dDfF] surrounded by optional whitespace,
+     * like Double.parseDouble. up to 15 significant digits and 10^22 the result is calculated exactly
+     * from the digits, longer numbers fall back to Double.parseDouble on the already validated text.
+     *
+     * @return the price, NaN if the text is malformed
+     */
+    private static double parsePrice(ByteBuffer buffer, int from, int to) {
+        while (from < to && buffer.get(from) <= ' ') {
+            from++;
+        }
+        while (to > from && buffer.get(to - 1) <= ' ') {
+            to--;
+        }
+        int end = to;
+        if (end > from && isTypeSuffix(buffer.get(end - 1))) {
+            end--;
+        }
+        int i = from;
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '+' || buffer.get(i) == '-')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        int digits = 0;
+        boolean dot = false;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (isDigit(b)) {
+                digits++;
+                if (mantissa == 0 && b == '0') {
+                    if (dot) {
+                        exponent--;
+                    }
+                    continue;
+                }
+                if (significantDigits < 19) {
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (dot) {
+                        exponent--;
+                    }
+                } else if (!dot) {
+                    exponent++;
+                }
+                significantDigits++;
+            } else if (b == '.' && !dot) {
+                dot = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            return Double.NaN;
+        }
+        if (i < end && (buffer.get(i) == 'e' || buffer.get(i) == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (buffer.get(i) == '+' || buffer.get(i) == '-')) {
+                negativeExponent = buffer.get(i) == '-';
+                i++;
+            }
+            int exponentDigits = 0;
+            int explicitExponent = 0;
+            for (; i < end && isDigit(buffer.get(i)); i++) {
+                explicitExponent = Math.min(explicitExponent * 10 + (buffer.get(i) - '0'), 100_000);
+                exponentDigits++;
+            }
+            if (exponentDigits == 0) {
+                return Double.NaN;
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        if (i != end) {
+            return Double.NaN;
+        }
+
+        double value;
+        if (mantissa == 0) {
+            value = 0;
+        } else if (significantDigits <= MAX_EXACT_DIGITS && exponent >= -22 && exponent <= 22) {
+            value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+        } else {
+            byte[] text = new byte[to - from];
+            buffer.get(from, text);
+            double parsed = Double.parseDouble(new String(text, StandardCharsets.US_ASCII));
+            return Double.isInfinite(parsed) ? Double.NaN : parsed;
+        }
+        return negative ? -value : value;
+    }
+
+    private static boolean isTypeSuffix(byte b) {
+        return b == 'd' || b == 'D' || b == 'f' || b == 'F';
+    }
+}
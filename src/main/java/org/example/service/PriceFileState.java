@@ -0,0 +1,28 @@
+package org.example.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * what is known about a price file when its prices were read.
+ *
+ * @param offset offset after the last complete line that was parsed, the next reload starts there
+ * @param length size of the file
+ * @param lastModified modification time of the file, epoch millis
+ * @param fileKey identity of the file in the file system, e.g. the inode, null if it is not known
+ */
+record PriceFileState(long offset, long length, long lastModified, Object fileKey) {
+
+    /**
+     * @return identity of the file in the file system, null if the file system has none or the file is not readable
+     */
+    static Object fileKey(File file) {
+        try {
+            return Files.readAttributes(file.toPath(), BasicFileAttributes.class).fileKey();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.example.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.util.Currency;
+import org.example.util.SymbolRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * watches the directory with the price files and reloads a currency when its file is changed.
+ * a file of a new currency is registered, so the aggregated endpoints include it.
+ * the events are handled on a single daemon thread, the readers are never blocked by a reload.
+ */
+@Component
+public class PriceFileWatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PriceFileWatcher.class);
+    private static final String FILE_SUFFIX = "_values.csv";
+
+    private final PriceService priceService;
+    private WatchService watchService;
+
+    @Value("${directory-location}")
+    public String directory;
+
+    /**
+     * reload the changed price files without a restart.
+     */
+    @Value("${watch.enabled:false}")
+    public boolean enabled;
+
+    public PriceFileWatcher(PriceService priceService) {
+        this.priceService = priceService;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path path = Path.of(directory);
+        watchService = FileSystems.getDefault().newWatchService();
+        path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        Thread thread = new Thread(this::watch, "price-file-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        LOGGER.info("watching the price files in {}", path);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                // a file written in several steps produces several events, it is reloaded once
+                Set<String> changed = new LinkedHashSet<>();
+                // a file created under the name of a loaded one, e.g. renamed in place, is read from the start
+                Set<String> created = new LinkedHashSet<>();
+                for (WatchEvent<?> event: key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        priceService.discoverCurrencies();
+                        for (Currency currency: priceService.getCurrencies()) {
+                            changed.add(currency.name());
+                        }
+                    } else {
+                        toCurrency((Path) event.context(), changed);
+                        if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                            toCurrency((Path) event.context(), created);
+                        }
+                    }
+                }
+                key.reset();
+                for (String currency: changed) {
+                    try {
+                        priceService.reload(currency, created.contains(currency));
+                    } catch (RuntimeException e) {
+                        LOGGER.error("error during reloading the prices of {}", currency, e);
+                    }
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            LOGGER.info("stopped watching the price files");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void toCurrency(Path file, Set<String> changed) {
+        String name = file.getFileName().toString();
+        if (!name.endsWith(FILE_SUFFIX)) {
+            return;
+        }
+        String currency = name.substring(0, name.length() - FILE_SUFFIX.length());
+        if (SymbolRegistry.isValid(currency)) {
+            changed.add(currency);
+        } else {
+            LOGGER.debug("the file {} is not a price file", name);
+        }
+    }
+}
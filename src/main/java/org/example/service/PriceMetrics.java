@@ -0,0 +1,119 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * the meters of the price service, scraped from /actuator/prometheus.
+ * the per-currency meters are looked up when a file is read, which is rare,
+ * the cache counters are resolved once as they are counted on every request.
+ */
+final class PriceMetrics {
+
+    static final String SOURCE_CSV = "csv";
+    static final String SOURCE_RELOAD = "reload";
+    static final String SOURCE_SNAPSHOT = "snapshot";
+
+    private final MeterRegistry registry;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private final Counter evictions;
+
+    PriceMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.cacheHits = cacheCounter(registry, "hit");
+        this.cacheMisses = cacheCounter(registry, "miss");
+        this.evictions = Counter.builder("price.cache.evictions")
+            .description("series of a currency evicted to keep the loaded prices in the memory budget")
+            .register(registry);
+    }
+
+    private static Counter cacheCounter(MeterRegistry registry, String result) {
+        return Counter.builder("price.cache.requests")
+            .description("lookups of the loaded prices of a currency")
+            .tag("result", result)
+            .register(registry);
+    }
+
+    MeterRegistry registry() {
+        return registry;
+    }
+
+    void cacheHit() {
+        cacheHits.increment();
+    }
+
+    void cacheMiss() {
+        cacheMisses.increment();
+    }
+
+    void eviction() {
+        evictions.increment();
+    }
+
+    /**
+     * @param source SOURCE_CSV, SOURCE_RELOAD or SOURCE_SNAPSHOT
+     * @param nanos duration of the read
+     * @param result counters of the parser, null if nothing was parsed
+     */
+    void fileRead(String currency, String source, long nanos, PriceFileParser.Result result) {
+        Timer.builder("price.file.load")
+            .description("time to read the prices of a currency")
+            .tag("currency", currency)
+            .tag("source", source)
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+        if (result == null) {
+            return;
+        }
+        Counter.builder("price.file.rows")
+            .description("rows of the currency parsed from the price file")
+            .tag("currency", currency)
+            .register(registry)
+            .increment(result.rows());
+        rejectedRows(currency, "malformed").increment(result.malformedRows());
+        rejectedRows(currency, "unknown").increment(result.unknownRows());
+        Counter.builder("price.file.bytes")
+            .description("bytes of the price file parsed")
+            .baseUnit("bytes")
+            .tag("currency", currency)
+            .register(registry)
+            .increment(result.bytesRead());
+    }
+
+    private Counter rejectedRows(String currency, String reason) {
+        return Counter.builder("price.file.rows.rejected")
+            .description("rows of the price file with a malformed timestamp or price, or an unknown structure")
+            .tag("currency", currency)
+            .tag("reason", reason)
+            .register(registry);
+    }
+
+    /**
+     * registers the gauge of the heap footprint of the loaded series of the currency.
+     */
+    <T> void footprint(String currency, T owner, ToDoubleFunction<T> bytes) {
+        Gauge.builder("price.series.footprint", owner, bytes)
+            .description("approximate heap footprint of the loaded prices")
+            .baseUnit("bytes")
+            .tag("currency", currency)
+            .strongReference(true)
+            .register(registry);
+    }
+
+    /**
+     * registers the gauge of the heap footprint of all the loaded series, compared to the memory budget.
+     */
+    <T> void residentFootprint(T owner, ToDoubleFunction<T> bytes) {
+        Gauge.builder("price.cache.footprint", owner, bytes)
+            .description("approximate heap footprint of all the loaded prices")
+            .baseUnit("bytes")
+            .strongReference(true)
+            .register(registry);
+    }
+}
@@ -1,53 +1,287 @@
 package org.example.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.example.exception.PriceFileNotFoundException;
+import org.example.model.CandleInterval;
+import org.example.model.Candles;
+import org.example.model.Correlation;
+import org.example.model.DailyIndex;
+import org.example.model.PriceQuery;
+import org.example.model.PriceQueryResult;
+import org.example.model.PriceSeries;
+import org.example.model.PriceSummary;
+import org.example.model.Returns;
+import org.example.model.Tick;
 import org.example.util.Currency;
+import org.example.util.SymbolRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.nio.channels.FileChannel;
 import java.nio.file.FileSystems;
-import java.time.Instant;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.util.AbstractMap;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.EnumMap;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * the service reads the csv files with the names {CRYPTO_MANE}_values.csv
  * and gets statistics about the crypto prices.
- * {CRYPTO_NAME} must be one of the the enum org.example.util.Currency
+ * the currencies are discovered from the names of the files in the directory,
+ * {CRYPTO_NAME} consists of upper case letters and digits.
  */
 @Service
 public class PriceService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(PriceService.class);
-    private static final int COLUMN_QUANTITY = 3;
-    private static final int TIMESTAMP_INDEX = 0;
-    private static final int SYMBOL_INDEX = 1;
-    private static final int PRICE_INDEX = 2;
-    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
-    private final Map<Currency, Map<LocalDateTime, Double>> cachedPrices = new EnumMap<>(Currency.class);
+    private static final String FILE_SUFFIX = "_values.csv";
+    private final SymbolRegistry symbols = new SymbolRegistry();
+    private final ConcurrentMap<Currency, CompletableFuture<PriceSeries>> loading = new ConcurrentHashMap<>();
+    private final Object publishLock = new Object();
+    private final ConcurrentMap<Currency, Object> writeLocks = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Currency, Queue<PriceSeries.Builder>> pendingTicks = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, PriceFileState> fileStates = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Currency, AtomicLong> accessTimes = new ConcurrentHashMap<>();
+    /**
+     * {currency}: {ticks added by ingest()}. the price file does not have them and a snapshot is dropped
+     * once the file changes, so they are added again to every series loaded after an eviction.
+     */
+    private final ConcurrentMap<String, PriceSeries> ingestedTicks = new ConcurrentHashMap<>();
+    private final Object evictionLock = new Object();
+    private final Object loadExecutorLock = new Object();
+    private volatile PriceSnapshot cachedPrices = PriceSnapshot.EMPTY;
+    private volatile ExecutorService loadExecutor;
 
     @Value("${directory-location}")
     public String directory;
 
+    /**
+     * load all the currencies in parallel at start. until they are loaded the service is not ready.
+     */
+    @Value("${warm-up.enabled:false}")
+    public boolean warmUpEnabled;
+
+    /**
+     * size of the pool that loads the files at the warm-up and for the requests of several currencies,
+     * the number of processors if not positive.
+     */
+    @Value("${warm-up.threads:0}")
+    public int warmUpThreads;
+
+    /**
+     * split a file into chunks and parse them with fork-join instead of one thread.
+     */
+    @Value("${parser.parallel:false}")
+    public boolean parallelParsing;
+
+    /**
+     * approximate size of a chunk in bytes for the parallel parsing.
+     */
+    @Value("${parser.chunk-size:67108864}")
+    public long parserChunkSize = 64L << 20;
+
+    /**
+     * keep the parsed prices in binary snapshots and map them at start instead of parsing the csv files.
+     */
+    @Value("${snapshot.enabled:false}")
+    public boolean snapshotEnabled;
+
+    /**
+     * directory of the snapshots, {directory-location}/.snapshot if empty.
+     */
+    @Value("${snapshot.directory:}")
+    public String snapshotDirectory;
+
+    /**
+     * maximum number of the values of the returns and the correlation of a request:
+     * the intervals times the currencies, and the cells of the correlation matrix.
+     */
+    @Value("${analytics.max-points:100000}")
+    public int analyticsMaxPoints = 100_000;
+
+    /**
+     * maximum number of the days of a normalized/daily request.
+     */
+    @Value("${normalized.max-days:3660}")
+    public int normalizedMaxDays = 3660;
+
+    /**
+     * approximate heap footprint of the loaded series in bytes above which the series of the least recently used
+     * currencies are evicted, weighted by their size. no limit if not positive.
+     * the summaries and the daily indexes stay, an evicted series is read again when its ticks are needed.
+     */
+    @Value("${memory.budget-bytes:0}")
+    public long memoryBudgetBytes;
+
+    /**
+     * the registry of the actuator, a standalone one when the service is created without spring.
+     */
+    @Autowired(required = false)
+    public MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private volatile boolean warmingUp;
+    private volatile boolean discovered;
+    private volatile PriceMetrics metrics;
+
+    /**
+     * starts loading all the currencies on the load pool if the warm-up is enabled.
+     * does not wait for the files, the service reports not ready until they are loaded.
+     * a file that fails to load is logged and loaded again on request.
+     */
+    @PostConstruct
+    public void warmUp() {
+        if (!warmUpEnabled) {
+            return;
+        }
+        ExecutorService executor = loadExecutor();
+        warmingUp = true;
+        long start = System.nanoTime();
+        List<Currency> currencies = getCurrencies();
+        LOGGER.info("warming up {} currencies on {} threads", currencies.size(), loadThreads());
+
+        CompletableFuture<?>[] loads = new CompletableFuture<?>[currencies.size()];
+        for (Currency crypto: currencies) {
+            loads[crypto.id()] = CompletableFuture.runAsync(() -> ensurePricesLoaded(crypto), executor);
+        }
+        CompletableFuture.allOf(loads).whenComplete((ignored, e) -> {
+            warmingUp = false;
+            if (e != null) {
+                LOGGER.error("warm-up finished with errors", e);
+            } else {
+                LOGGER.info("warm-up finished in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        });
+    }
+
+    private int loadThreads() {
+        return warmUpThreads > 0 ? warmUpThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * the loads block on the files, so they do not run on the common fork-join pool,
+     * the parallel parser forks into that pool.
+     *
+     * @return the bounded pool of the warm-up and of the requests of several currencies, created on the first use
+     */
+    private ExecutorService loadExecutor() {
+        ExecutorService executor = loadExecutor;
+        if (executor == null) {
+            synchronized (loadExecutorLock) {
+                executor = loadExecutor;
+                if (executor == null) {
+                    AtomicInteger threadNumber = new AtomicInteger();
+                    executor = Executors.newFixedThreadPool(loadThreads(), runnable -> {
+                        Thread thread = new Thread(runnable, "price-load-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    loadExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * @return false while the warm-up is loading the currencies
+     */
+    public boolean isReady() {
+        return !warmingUp;
+    }
+
+    /**
+     * the directory is listed on the first call, the files added later are
+     * registered by findCurrency() or discoverCurrencies().
+     *
+     * @return the registered currencies ordered by the id
+     */
+    public List<Currency> getCurrencies() {
+        if (!discovered) {
+            discoverCurrencies();
+        }
+        return symbols.all();
+    }
+
+    /**
+     * registers the currencies of all the {CRYPTO_NAME}_values.csv files in the directory.
+     * the new names are registered in the alphabetical order.
+     */
+    public void discoverCurrencies() {
+        File[] files = directory == null ? null : new File(directory).listFiles((dir, name) -> name.endsWith(FILE_SUFFIX));
+        if (files == null) {
+            LOGGER.warn("cannot list the price files in {}", directory);
+        } else {
+            String[] names = new String[files.length];
+            for (int i = 0; i < files.length; i++) {
+                String name = files[i].getName();
+                names[i] = name.substring(0, name.length() - FILE_SUFFIX.length());
+            }
+            Arrays.sort(names);
+            for (String name: names) {
+                if (SymbolRegistry.isValid(name)) {
+                    symbols.register(name);
+                } else {
+                    LOGGER.warn("the price file {}{} has an invalid currency name", name, FILE_SUFFIX);
+                }
+            }
+        }
+        discovered = true;
+    }
+
+    /**
+     * @param currency cryptocurrency name in any case
+     * @return the registered currency, null if there is no price file for it
+     */
+    public Currency findCurrency(String currency) {
+        List<Currency> currencies = getCurrencies();
+        Currency cryptoName = symbols.find(currency);
+        if (cryptoName == null) {
+            String name = currency.toUpperCase(Locale.ROOT);
+            if (SymbolRegistry.isValid(name) && getFile(name).exists()) {
+                cryptoName = symbols.register(name);
+                LOGGER.info("registered the currency {}, {} currencies", name, currencies.size() + 1);
+            }
+        }
+        return cryptoName;
+    }
+
+    private Currency getCurrency(String currency) {
+        Currency cryptoName = findCurrency(currency);
+        if (cryptoName == null) {
+            throw new IllegalArgumentException("Invalid currency: " + currency);
+        }
+        return cryptoName;
+    }
+
     /**
      * for the given currency reads the prices file and calculates the
      * min, max, oldest, newest prices.
@@ -56,9 +290,8 @@ public class PriceService {
      * @return map: {name of the statistic}: {value in double}
      */
     public Map<String, Double> getPrices(String currency) {
-        Currency cryptoName = Currency.valueOf(currency.toUpperCase());
-        ensurePricesLoaded(cryptoName);
-        Map<String, Double> result = getStat(cachedPrices.get(cryptoName));
+        Currency cryptoName = getCurrency(currency);
+        Map<String, Double> result = summary(cryptoName).getStat();
 
         LOGGER.info("returning prices with {} statistics", result.size());
         return result;
@@ -67,212 +300,970 @@ public class PriceService {
     /**
      * for all the currencies reads the prices file and calculates the
      * min, max, oldest, newest prices.
+     * the result is built once from the precomputed summaries and reused.
+     * a currency whose file is missing is skipped.
      *
-     * @return map: {currency name}: {map: {name of the statistic}:{value in double}}
+     * @return unmodifiable map: {currency name}: {map: {name of the statistic}:{value in double}}
      */
     public Map<Currency, Map<String, Double>> getPrices() {
-        Map<Currency, Map<String, Double>> result = new EnumMap<>(Currency.class);
-        for (Currency cryptoName: Currency.values()) {
-            ensurePricesLoaded(cryptoName);
-            result.put(cryptoName, getStat(cachedPrices.get(cryptoName)));
+        Map<Currency, Map<String, Double>> result = ensureAllPricesLoaded().getAllPrices();
+
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("returning prices for {} currencies", result.size());
+        }
+        return result;
+    }
+
+    /**
+     * for the given currency calculates the min, max, oldest, newest prices
+     * and the normalized range in a time window, from the range index without scanning the prices.
+     *
+     * @param currency cryptocurrency name
+     * @param from epoch millis, inclusive
+     * @param to epoch millis, exclusive
+     * @return map: {name of the statistic}: {value}, null if there are no prices in the window
+     */
+    public Map<String, Object> getStats(String currency, long from, long to) {
+        PriceSummary summary = ensurePricesLoaded(getCurrency(currency)).summary(from, to);
+        if (summary.isEmpty()) {
+            return null;
+        }
+        Map<String, Object> result = new LinkedHashMap<>(summary.getStat());
+        result.put("normalized", summary.getNormalizedRange());
+
+        LOGGER.info("returning prices with {} statistics for a window", result.size());
+        return result;
+    }
+
+    /**
+     * the hourly and the daily candles are precomputed when the prices are loaded and extended with every new tick.
+     * the minute candles are built on the first request and kept with the series until it is evicted.
+     *
+     * @param currency cryptocurrency name
+     * @param interval length of a candle
+     * @return open, high, low, close prices of the currency per interval
+     */
+    public Candles getCandles(String currency, CandleInterval interval) {
+        Currency cryptoName = getCurrency(currency);
+        Candles result = ensurePricesLoaded(cryptoName).candles(interval);
+        checkCandlesBudget(cryptoName, interval);
+
+        LOGGER.info("returning {} candles of {}", result.size(), interval.getCode());
+        return result;
+    }
+
+    /**
+     * the returns are calculated from the precomputed candles in one pass.
+     *
+     * @param currency cryptocurrency name
+     * @param interval length of a return
+     * @param from epoch millis, inclusive, the start of the first candle if null
+     * @param to epoch millis, exclusive, the end of the last candle if null
+     * @return log returns of the close prices per interval
+     * @throws IllegalArgumentException if the range has more than analyticsMaxPoints intervals
+     */
+    public Returns getReturns(String currency, CandleInterval interval, Long from, Long to) {
+        Currency cryptoName = getCurrency(currency);
+        Candles candles = ensurePricesLoaded(cryptoName).candles(interval);
+        checkCandlesBudget(cryptoName, interval);
+        long[] range = analyticsRange(List.of(candles), interval, from, to);
+        Returns result = Returns.of(candles, range[0], range[1]);
+
+        LOGGER.info("returning {} returns of {}", result.size(), interval.getCode());
+        return result;
+    }
+
+    /**
+     * the currencies are loaded in parallel on the load pool, their returns are aligned to one grid
+     * and correlated with Returns.correlation().
+     *
+     * @param currencies cryptocurrency names, all the currencies if null or empty
+     * @param interval length of a return
+     * @param from epoch millis, inclusive, the start of the first candle if null
+     * @param to epoch millis, exclusive, the end of the last candle if null
+     * @return correlation of the log returns of every pair of the currencies
+     * @throws IllegalArgumentException if the intervals times the currencies or the cells of the matrix
+     * are more than analyticsMaxPoints
+     */
+    public Correlation getCorrelation(List<String> currencies, CandleInterval interval, Long from, Long to) {
+        List<Currency> cryptos = resolveCurrencies(currencies);
+        if ((long) cryptos.size() * cryptos.size() > analyticsMaxPoints) {
+            throw new IllegalArgumentException("Too many currencies: the correlation matrix of " + cryptos.size()
+                + " currencies has more than " + analyticsMaxPoints + " values");
+        }
+        List<CompletableFuture<PriceSeries>> tasks = new ArrayList<>(cryptos.size());
+        for (Currency crypto: cryptos) {
+            tasks.add(cryptos.size() == 1
+                ? CompletableFuture.completedFuture(ensurePricesLoaded(crypto))
+                : CompletableFuture.supplyAsync(() -> ensurePricesLoaded(crypto), loadExecutor()));
+        }
+        List<Candles> candles = new ArrayList<>(tasks.size());
+        for (CompletableFuture<PriceSeries> task: tasks) {
+            candles.add(await(task).candles(interval));
+        }
+        checkCandlesBudget(null, interval);
+        long[] range = analyticsRange(candles, interval, from, to);
+        List<Returns> returns = new ArrayList<>(candles.size());
+        List<String> names = new ArrayList<>(candles.size());
+        for (int i = 0; i < candles.size(); i++) {
+            returns.add(Returns.of(candles.get(i), range[0], range[1]));
+            names.add(cryptos.get(i).name());
         }
+        Correlation result = new Correlation(interval, range[0], range[1], names, Returns.correlation(returns));
 
-        LOGGER.info("returning prices for {} currencies", result.size());
+        LOGGER.info("returning the correlation of {} currencies", names.size());
         return result;
     }
 
+    /**
+     * the candles that are not precomputed make the series larger when they are built.
+     *
+     * @param used the currency used by the caller, it is not evicted, null if there are several
+     */
+    private void checkCandlesBudget(Currency used, CandleInterval interval) {
+        if (!interval.isPrecomputed()) {
+            enforceMemoryBudget(used);
+        }
+    }
+
+    /**
+     * a grid of the range is calculated for every currency, so the intervals times the currencies are limited.
+     *
+     * @return the range with the missing ends taken from the candles, the start rounded down to the interval
+     */
+    private long[] analyticsRange(List<Candles> candles, CandleInterval interval, Long from, Long to) {
+        long millis = interval.getMillis();
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        for (Candles series: candles) {
+            if (series.size() > 0) {
+                first = Math.min(first, series.start(0));
+                last = Math.max(last, series.start(series.size() - 1) + millis);
+            }
+        }
+        long start = from != null ? from : first == Long.MAX_VALUE ? 0 : first;
+        long end = to != null ? to : last == Long.MIN_VALUE ? start : last;
+        start = Math.floorDiv(start, millis) * millis;
+        long points = Returns.points(interval, start, end);
+        if (points > analyticsMaxPoints / Math.max(1, candles.size())) {
+            throw new IllegalArgumentException("Too many intervals: more than " + analyticsMaxPoints
+                + " intervals of " + interval.getCode() + (candles.size() > 1 ? " for all the currencies" : ""));
+        }
+        return new long[] {start, Math.max(start, end)};
+    }
+
+    /**
+     * adds a batch of ticks to the prices of the currency. the price file is loaded first if needed.
+     * the batches of concurrent callers are queued and applied by one writer at a time:
+     * the caller that gets the write lock appends all the queued batches at once,
+     * so the series, the summary and the daily index are extended once per group of batches.
+     * the readers keep using the published snapshot and are never blocked.
+     * the ingested ticks are kept in memory only, the file is not changed. they are kept apart from the series
+     * as well, so they are not lost when the series is evicted and read from the file again.
+     *
+     * @param currency cryptocurrency name
+     * @param ticks the ticks in any order, a tick replaces an existing one with the same timestamp
+     * @return the statistics after the ticks are added, like getPrices(currency)
+     */
+    public Map<String, Double> ingest(String currency, List<Tick> ticks) {
+        Currency cryptoName = getCurrency(currency);
+        ensurePricesLoaded(cryptoName);
+        PriceSeries.Builder batch = PriceSeries.builder(ticks.size());
+        for (Tick tick: ticks) {
+            batch.add(tick.timestamp(), tick.price());
+        }
+        pendingTicks.computeIfAbsent(cryptoName, k -> new ConcurrentLinkedQueue<>()).add(batch);
+        synchronized (writeLock(cryptoName)) {
+            // the batch may have been applied by the previous writer already
+            applyPendingTicks(cryptoName);
+        }
+        Map<String, Double> result = cachedPrices.summary(cryptoName).getStat();
+        enforceMemoryBudget(cryptoName);
+
+        LOGGER.info("ingested {} ticks for {}", ticks.size(), cryptoName);
+        return result;
+    }
+
+    /**
+     * must be called with the write lock of the currency.
+     * a series evicted since the caller has loaded it is read again.
+     */
+    private void applyPendingTicks(Currency currency) {
+        Queue<PriceSeries.Builder> queue = pendingTicks.get(currency);
+        PriceSeries.Builder ticks = queue.poll();
+        if (ticks == null) {
+            return;
+        }
+        for (PriceSeries.Builder batch = queue.poll(); batch != null; batch = queue.poll()) {
+            ticks.addAll(batch);
+        }
+        PriceSeries series = cachedPrices.get(currency);
+        if (series == null) {
+            series = loadSeries(currency.name());
+        }
+        PriceSeries ingested = ingestedTicks.get(currency.name());
+        PriceSeries.Builder copy = PriceSeries.builder(ticks.size()).addAll(ticks);
+        ingestedTicks.put(currency.name(), ingested == null ? copy.build() : ingested.append(copy));
+        publish(currency, series.append(ticks));
+    }
+
+    /**
+     * the version grows with every change of the loaded prices: a loaded, reloaded file or ingested ticks.
+     * the results of getPrices() and getNormalized() do not change while the version is the same.
+     * read the version before the results, then it is never newer than them.
+     *
+     * @return version of the loaded prices, starting from 0 after every start
+     */
+    public long getDataVersion() {
+        return cachedPrices.version();
+    }
+
     /**
      * return a descending sorted list of all the cryptos,
      * comparing the normalized range (i.e. (max-min)/min).
+     * the ranking is sorted once from the precomputed summaries and reused,
+     * once it is built the call allocates nothing.
      *
-     * @return List of map.Entry {currency}:{normalized}
+     * @return unmodifiable List of map.Entry {currency}:{normalized}, the normalized range is not rounded
      */
-    public List<Map.Entry<Currency, BigDecimal>> getNormalized() {
-        List<Map.Entry<Currency, BigDecimal>> list = new ArrayList<>();
-        for (Currency crypto: Currency.values()) {
-            ensurePricesLoaded(crypto);
-            Map<LocalDateTime, Double> prices = cachedPrices.get(crypto);
-            BigDecimal normalized = calculateNormalizedRange(prices).orElse(BigDecimal.ZERO);
-            list.add(new AbstractMap.SimpleEntry<>(crypto, normalized));
-        }
-        list.sort(Map.Entry.<Currency, BigDecimal>comparingByValue().reversed());
+    public List<Map.Entry<Currency, Double>> getNormalized() {
+        List<Map.Entry<Currency, Double>> list = ensureAllPricesLoaded().getNormalizedRanking();
 
-        LOGGER.info("returning normalized value for {} currencies", list.size());
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("returning normalized value for {} currencies", list.size());
+        }
         return list;
     }
 
-    private Optional<BigDecimal> calculateNormalizedRange(Map<LocalDateTime, Double> prices) {
-        BigDecimal max = BigDecimal.valueOf(getHighestPrice(prices).orElse(0.0));
-        BigDecimal min = BigDecimal.valueOf(getLowestPrice(prices).orElse(0.0));
+    /**
+     * return the cryptos with the highest normalized range in descending order.
+     * the currencies are selected with a heap of the limit size, not sorted all.
+     *
+     * @param limit maximum number of the cryptos
+     * @return unmodifiable List of map.Entry {currency}:{normalized}
+     */
+    public List<Map.Entry<Currency, Double>> getNormalized(int limit) {
+        List<Map.Entry<Currency, Double>> list = ensureAllPricesLoaded().getNormalizedRanking(limit);
 
-        if (min.compareTo(BigDecimal.ZERO) == 0) {
-            LOGGER.error("Cannot calculate normalized range (min price is zero).");
-            return Optional.empty();  // Skip if min price is zero
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("returning normalized value for {} currencies", list.size());
         }
-        return Optional.of(max.subtract(min).divide(min, RoundingMode.HALF_UP));
+        return list;
     }
 
     /**
      * return the crypto with the highest normalized range for a
-     * specific day.
+     * specific day in the default time zone.
      *
      * @param date LocalDate
-     * @return currency name
+     * @return currency name, null if no currency has a defined normalized range that day
      */
     public String getNormalizedForDay(LocalDate date) {
-        Map<Currency, BigDecimal> result = new EnumMap<>(Currency.class);
-        for (Currency crypto: Currency.values()) {
-            ensurePricesLoaded(crypto);
-            Map<LocalDateTime, Double> prices = cachedPrices.get(crypto);
-            if (prices.isEmpty()) {
-                LOGGER.warn("No price data available for currency: {}", crypto);
+        return getNormalizedForDay(date, null);
+    }
+
+    /**
+     * return the crypto with the highest normalized range for a
+     * specific day. the ranges are compared as primitives, the call allocates nothing
+     * once the daily indexes of the zone are built.
+     *
+     * @param date LocalDate
+     * @param zone time zone of the day, the default one if null
+     * @return currency name, null if no currency has a defined normalized range that day
+     */
+    public String getNormalizedForDay(LocalDate date, ZoneId zone) {
+        Currency winner = findHighestNormalizedForDay(ensureAllPricesLoaded(), date, zone);
+        String currency = winner == null ? null : winner.name();
+        LOGGER.debug("returning the currency with the highest normalized value for a day: {}", currency);
+        return currency;
+    }
+
+    /**
+     * return the crypto with the highest normalized range for every
+     * day of the range.
+     *
+     * @param from first day, inclusive
+     * @param to last day, inclusive
+     * @return map sorted by day: {day}: {currency name}, days without data are skipped
+     */
+    public Map<LocalDate, String> getNormalizedForDays(LocalDate from, LocalDate to) {
+        return getNormalizedForDays(from, to, null);
+    }
+
+    /**
+     * @param from first day, inclusive
+     * @param to last day, inclusive
+     * @param zone time zone of the days, the default one if null
+     * @return map sorted by day: {day}: {currency name}, days without data are skipped
+     * @throws IllegalArgumentException if the range has more than normalizedMaxDays days
+     */
+    public Map<LocalDate, String> getNormalizedForDays(LocalDate from, LocalDate to, ZoneId zone) {
+        if (ChronoUnit.DAYS.between(from, to) >= normalizedMaxDays) {
+            throw new IllegalArgumentException("Too many days: more than " + normalizedMaxDays + " days");
+        }
+        PriceSnapshot snapshot = ensureAllPricesLoaded();
+        Map<LocalDate, String> result = new LinkedHashMap<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            Currency winner = findHighestNormalizedForDay(snapshot, date, zone);
+            if (winner != null) {
+                result.put(date, winner.name());
+            }
+        }
+        LOGGER.debug("returning the currencies with the highest normalized value for {} days", result.size());
+        return result;
+    }
+
+    /**
+     * answers a batch of queries in one pass per currency: the statistics come from the summary,
+     * the days from one probe of the daily index per day. the currencies are loaded and queried
+     * in parallel on the load pool. the winner of a day is chosen like by getNormalizedForDay(), among the queried currencies.
+     *
+     * @param query the currencies, days and statistics, the names must be valid
+     * @return the statistics per currency and the winner per day
+     */
+    public PriceQueryResult query(PriceQuery query) {
+        return query(query, null);
+    }
+
+    /**
+     * @param query the currencies, days and statistics, the names must be valid
+     * @param zone time zone of the days, the default one if null
+     * @return the statistics per currency and the winner per day
+     */
+    public PriceQueryResult query(PriceQuery query, ZoneId zone) {
+        List<Currency> currencies = resolveCurrencies(query.currencies());
+        List<LocalDate> days = query.days() == null ? List.of() : query.days();
+        List<String> stats = query.stats() == null || query.stats().isEmpty() ? PriceQuery.STATS : query.stats();
+
+        List<CompletableFuture<CurrencyQuery>> tasks = new ArrayList<>(currencies.size());
+        for (Currency crypto: currencies) {
+            tasks.add(currencies.size() == 1
+                ? CompletableFuture.completedFuture(queryCurrency(crypto, days, stats, zone))
+                : CompletableFuture.supplyAsync(() -> queryCurrency(crypto, days, stats, zone), loadExecutor()));
+        }
+        Map<String, PriceQueryResult.CurrencyResult> results = new LinkedHashMap<>();
+        List<CurrencyQuery> byId = new ArrayList<>(tasks.size());
+        for (CompletableFuture<CurrencyQuery> task: tasks) {
+            CurrencyQuery result = await(task);
+            results.put(result.currency().name(), result.result());
+            byId.add(result);
+        }
+
+        // on equal ranges the first currency wins, like in findHighestNormalizedForDay()
+        byId.sort(Comparator.comparingInt(result -> result.currency().id()));
+        Map<LocalDate, String> winners = new LinkedHashMap<>();
+        for (int day = 0; day < days.size(); day++) {
+            CurrencyQuery winner = null;
+            for (CurrencyQuery result: byId) {
+                if (result.normalized() != null && !Double.isNaN(result.normalized()[day])
+                    && (winner == null || result.normalized()[day] > winner.normalized()[day])) {
+                    winner = result;
+                }
+            }
+            if (winner != null) {
+                winners.put(days.get(day), winner.currency().name());
+            }
+        }
+
+        LOGGER.info("returning a query result for {} currencies and {} days", results.size(), days.size());
+        return new PriceQueryResult(results, winners);
+    }
+
+    /**
+     * @param currencies cryptocurrency names in any case, may repeat
+     * @return the currencies in the given order without repeats, all the loaded ones if null or empty
+     */
+    private List<Currency> resolveCurrencies(List<String> currencies) {
+        List<Currency> result = new ArrayList<>();
+        if (currencies == null || currencies.isEmpty()) {
+            PriceSnapshot snapshot = ensureAllPricesLoaded();
+            for (Currency crypto: symbols.all()) {
+                if (snapshot.summary(crypto) != null) {
+                    result.add(crypto);
+                }
+            }
+        } else {
+            for (String currency: currencies) {
+                Currency crypto = getCurrency(currency);
+                if (!result.contains(crypto)) {
+                    result.add(crypto);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param normalized the normalized range per queried day, NaN if it is not defined, null if the series is empty
+     */
+    private record CurrencyQuery(Currency currency, PriceQueryResult.CurrencyResult result, double[] normalized) {
+    }
+
+    private CurrencyQuery queryCurrency(Currency crypto, List<LocalDate> days, List<String> stats, ZoneId zone) {
+        PriceSummary summary = summary(crypto);
+        Map<String, Object> total = new LinkedHashMap<>();
+        for (String stat: stats) {
+            total.put(stat, stat.equals("normalized") ? summary.getNormalizedRange() : summary.getStat().get(stat));
+        }
+
+        Map<LocalDate, Map<String, Object>> perDay = new LinkedHashMap<>();
+        double[] normalized = summary.isEmpty() ? null : new double[days.size()];
+        DailyIndex index = days.isEmpty() ? null : dailyIndex(crypto, zone);
+        for (int day = 0; day < days.size(); day++) {
+            int slot = summary.isEmpty() ? DailyIndex.NO_DATA : index.slot(days.get(day));
+            if (normalized != null) {
+                normalized[day] = normalizedRange(index, slot);
+            }
+            if (slot == DailyIndex.NO_DATA) {
                 continue;
             }
-            double max = getMaxPriceForDay(prices, date)
-                .orElse(new AbstractMap.SimpleEntry<>(EPOCH, 0.0))
-                .getValue();
-            double min = getMinPriceForDay(prices, date)
-                .orElse(new AbstractMap.SimpleEntry<>(EPOCH, 0.0))
-                .getValue();
-            BigDecimal normalized = calculateNormalizedRangeForDay(max, min).orElse(BigDecimal.ZERO);
-
-            result.put(crypto, normalized);
-        }
-        String currency = result.entrySet().stream()
-            .max(Map.Entry.comparingByValue())
-            .map(Map.Entry::getKey)
-            .map(Currency::name)
-            .orElse(null); // Return null if no valid entry
-        LOGGER.info("returning the currency with the highest normalized value for a day: {}", currency);
-        return currency;
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (String stat: stats) {
+                values.put(stat, switch (stat) {
+                    case "oldest" -> index.open(slot);
+                    case "newest" -> index.close(slot);
+                    case "min" -> index.low(slot);
+                    case "max" -> index.high(slot);
+                    default -> PriceSummary.normalizedRange(index.low(slot), index.high(slot));
+                });
+            }
+            perDay.put(days.get(day), values);
+        }
+        return new CurrencyQuery(crypto, new PriceQueryResult.CurrencyResult(total, perDay), normalized);
+    }
+
+    /**
+     * one probe of the daily index per currency. on equal ranges the first currency wins.
+     * a currency without prices that day or with a zero lowest price is not a candidate.
+     *
+     * @return the winner, null if no currency has a defined range that day
+     */
+    private Currency findHighestNormalizedForDay(PriceSnapshot snapshot, LocalDate date, ZoneId zone) {
+        int winner = -1;
+        double highest = 0;
+        for (int id = 0; id < snapshot.capacity(); id++) {
+            PriceSummary summary = snapshot.summary(id);
+            if (summary == null) {
+                continue;
+            }
+            if (summary.isEmpty()) {
+                LOGGER.warn("No price data available for currency: {}", snapshot.currency(id));
+                continue;
+            }
+            PriceSeries prices = snapshot.get(id);
+            DailyIndex days = prices != null ? prices.dailyIndex(zone) : dailyIndex(snapshot.currency(id), zone);
+            double normalized = normalizedRange(days, days.slot(date));
+
+            if (!Double.isNaN(normalized) && (winner < 0 || normalized > highest)) {
+                highest = normalized;
+                winner = id;
+            }
+        }
+        return winner < 0 ? null : snapshot.currency(winner);
+    }
+
+    /**
+     * @return the normalized range of the day, NaN if there are no prices that day or the lowest price is zero
+     */
+    private static double normalizedRange(DailyIndex days, int slot) {
+        if (slot == DailyIndex.NO_DATA || days.low(slot) == 0) {
+            return Double.NaN;
+        }
+        return PriceSummary.normalizedRange(days.low(slot), days.high(slot));
     }
 
-    private Optional<BigDecimal> calculateNormalizedRangeForDay(double max, double min) {
-        if (min == 0) {
-            return Optional.empty();
+    /**
+     * the summary stays in the snapshot when the series is evicted, the file is not read again for it.
+     */
+    private PriceSummary summary(Currency currency) {
+        PriceSummary summary = cachedPrices.summary(currency);
+        if (summary == null) {
+            return ensurePricesLoaded(currency).summary();
         }
-        return Optional.of(BigDecimal.valueOf(max - min).divide(BigDecimal.valueOf(min), RoundingMode.HALF_UP));
+        metrics().cacheHit();
+        return summary;
     }
 
-    private Optional<Map.Entry<LocalDateTime, Double>> getMaxPriceForDay(Map<LocalDateTime, Double> prices, LocalDate date) {
-        return prices.entrySet().stream()
-            .filter(entry -> entry.getKey().toLocalDate().equals(date))
-            .max(Comparator.comparingDouble(Map.Entry::getValue));
+    /**
+     * the daily indexes stay in the snapshot when the series is evicted.
+     * the index of a new zone of an evicted currency is built once from the prices read again and kept,
+     * the series is not published, so the zone lookups do not evict the other currencies.
+     *
+     * @param zone time zone of the days, the default one if null
+     * @throws IllegalArgumentException if the currency is evicted and already has MAX_CACHED_ZONES other zones,
+     * the file is not read again for every request in a new zone
+     */
+    private DailyIndex dailyIndex(Currency currency, ZoneId zone) {
+        PriceSnapshot snapshot = cachedPrices;
+        PriceSeries prices = snapshot.get(currency);
+        if (prices != null) {
+            return prices.dailyIndex(zone);
+        }
+        if (snapshot.summary(currency) == null) {
+            return ensurePricesLoaded(currency).dailyIndex(zone);
+        }
+        DailyIndex days = snapshot.dailyIndex(currency.id());
+        if (zone == null || zone.equals(days.zone())) {
+            return days;
+        }
+        Map<ZoneId, DailyIndex> zones = snapshot.zoneIndexes(currency.id());
+        DailyIndex index = zones == null ? null : zones.get(zone);
+        return index != null ? index : buildEvictedZoneIndex(currency, zone);
     }
 
-    private Optional<Map.Entry<LocalDateTime, Double>> getMinPriceForDay(Map<LocalDateTime, Double> prices, LocalDate date) {
-        return prices.entrySet().stream()
-            .filter(entry -> entry.getKey().toLocalDate().equals(date))
-            .min(Comparator.comparingDouble(Map.Entry::getValue));
+    private DailyIndex buildEvictedZoneIndex(Currency currency, ZoneId zone) {
+        synchronized (writeLock(currency)) {
+            PriceSnapshot snapshot = cachedPrices;
+            PriceSeries prices = snapshot.get(currency);
+            if (prices != null) {
+                return prices.dailyIndex(zone);
+            }
+            Map<ZoneId, DailyIndex> zones = snapshot.zoneIndexes(currency.id());
+            DailyIndex index = zones.get(zone);
+            if (index == null) {
+                if (zones.size() >= PriceSeries.MAX_CACHED_ZONES) {
+                    throw new IllegalArgumentException("Too many zones for " + currency.name() + ", at most "
+                        + PriceSeries.MAX_CACHED_ZONES + " are kept: " + zone);
+                }
+                index = loadSeries(currency.name()).dailyIndex(zone);
+                zones.put(zone, index);
+            }
+            return index;
+        }
     }
 
-    private void ensurePricesLoaded(Currency cryptoName) {
-        cachedPrices.computeIfAbsent(cryptoName, k -> readFile(cryptoName.name()));
+    /**
+     * returns the published series without locking once the currency is loaded.
+     * otherwise the first caller reads the file and the concurrent callers
+     * wait for the same future, so every file is parsed once.
+     * the future is removed once the series is published, it would keep the series
+     * in memory after the series is replaced or evicted.
+     * a failed load is not cached, the next call tries again.
+     */
+    private PriceSeries ensurePricesLoaded(Currency cryptoName) {
+        PriceSeries series = cachedPrices.get(cryptoName);
+        if (series != null) {
+            metrics().cacheHit();
+            touch(cryptoName);
+            return series;
+        }
+        metrics().cacheMiss();
+        CompletableFuture<PriceSeries> future = new CompletableFuture<>();
+        CompletableFuture<PriceSeries> existing = loading.putIfAbsent(cryptoName, future);
+        if (existing != null) {
+            return await(existing);
+        }
+        // the previous load may have published the series and removed its future meanwhile
+        series = cachedPrices.get(cryptoName);
+        if (series != null) {
+            loading.remove(cryptoName, future);
+            future.complete(series);
+            touch(cryptoName);
+            return series;
+        }
+        try {
+            synchronized (writeLock(cryptoName)) {
+                series = loadSeries(cryptoName.name());
+                publish(cryptoName, series);
+            }
+            metrics().footprint(cryptoName.name(), this, service -> service.footprintBytes(cryptoName));
+            metrics().residentFootprint(this, PriceService::residentBytes);
+            future.complete(series);
+            loading.remove(cryptoName, future);
+            touch(cryptoName);
+            enforceMemoryBudget(cryptoName);
+            return series;
+        } catch (RuntimeException e) {
+            loading.remove(cryptoName, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
     }
 
     /**
-     * public modifier for the unit tests.
+     * must be called with the write lock of the currency.
      *
-     * @param currency crypto
-     * @return map datetime to price
+     * @return the series from the snapshot if the price file has not changed since it was written,
+     * otherwise the series parsed from the price file, with the ingested ticks
      */
-    public Map<LocalDateTime, Double> readFile(String currency) {
-        Map<LocalDateTime, Double> map = new HashMap<>();
-        String fileName = directory + FileSystems.getDefault().getSeparator()
-            + currency + "_values.csv";
-        File file = new File(fileName);
-        if (file.exists()) {
-            LOGGER.info("Reading file for currency: {}", currency);
-        } else {
-            throw new PriceFileNotFoundException("File not found: " + fileName);
+    private PriceSeries loadSeries(String currency) {
+        if (snapshotEnabled) {
+            long start = System.nanoTime();
+            SeriesSnapshotStore.Stored stored = snapshotStore().read(currency, getFile(currency));
+            if (stored != null) {
+                metrics().fileRead(currency, PriceMetrics.SOURCE_SNAPSHOT, System.nanoTime() - start, null);
+                fileStates.put(currency, stored.state());
+                return withIngestedTicks(currency, stored.series());
+            }
         }
+        PriceSeries series = readFile(currency);
+        writeSnapshot(currency, series);
+        return withIngestedTicks(currency, series);
+    }
 
-        try (BufferedReader br = new BufferedReader(new FileReader(fileName))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] tokens = line.split(",");
-                if (isValidPriceData(tokens)) {
-                    long timestamp;
-                    double price;
-                    if (isTimestampValid(tokens[TIMESTAMP_INDEX]) && isPriceValid(tokens[PRICE_INDEX])) {
-                        timestamp = Long.parseLong(tokens[TIMESTAMP_INDEX]);
-                        price = Double.parseDouble(tokens[PRICE_INDEX]);
-                    } else {
-                        LOGGER.warn("in the {} price file there is a row with malformed timestamp or price", currency);
-                        continue;
-                    }
-                    LocalDateTime time = convertTimestampToLocalDateTime(timestamp);
-                    String symbol = tokens[SYMBOL_INDEX];
-                    if (symbol.equals(currency)) {
-                        map.put(time, price);
-                    }
-                } else {
-                    LOGGER.warn("the {} price csv file has unknown structure", currency);
+    /**
+     * a snapshot written on shutdown has the ingested ticks already, they replace themselves.
+     */
+    private PriceSeries withIngestedTicks(String currency, PriceSeries series) {
+        PriceSeries ingested = ingestedTicks.get(currency);
+        if (ingested == null) {
+            return series;
+        }
+        PriceSeries.Builder ticks = PriceSeries.builder(ingested.size());
+        for (int i = 0; i < ingested.size(); i++) {
+            ticks.add(ingested.timestampAt(i), ingested.priceAt(i));
+        }
+        return series.append(ticks);
+    }
+
+    /**
+     * must be called with the write lock of the currency.
+     * the series is stored with the state of the price file it was read from,
+     * nothing is written if the state is not known.
+     */
+    private void writeSnapshot(String currency, PriceSeries series) {
+        PriceFileState state = fileStates.get(currency);
+        if (snapshotEnabled && state != null) {
+            snapshotStore().write(currency, series, state);
+        }
+    }
+
+    private PriceMetrics metrics() {
+        PriceMetrics current = metrics;
+        if (current == null || current.registry() != meterRegistry) {
+            current = new PriceMetrics(meterRegistry);
+            metrics = current;
+        }
+        return current;
+    }
+
+    private double footprintBytes(Currency currency) {
+        PriceSeries series = cachedPrices.get(currency);
+        return series == null ? 0 : series.footprintBytes();
+    }
+
+    private double residentBytes() {
+        long bytes = ingestedBytes();
+        for (PriceSeries series: cachedPrices.getSeries().values()) {
+            bytes += series.footprintBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * @return footprint of the ingested ticks kept apart from the series, they are never evicted
+     */
+    private long ingestedBytes() {
+        long bytes = 0;
+        for (PriceSeries ticks: ingestedTicks.values()) {
+            bytes += ticks.footprintBytes();
+        }
+        return bytes;
+    }
+
+    private SeriesSnapshotStore snapshotStore() {
+        return new SeriesSnapshotStore(snapshotDirectory == null || snapshotDirectory.isEmpty()
+            ? Path.of(directory, ".snapshot") : Path.of(snapshotDirectory));
+    }
+
+    /**
+     * writes the snapshots and stops the load pool.
+     */
+    @PreDestroy
+    public void close() {
+        saveSnapshots();
+        ExecutorService executor = loadExecutor;
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * writes the snapshots of all the loaded currencies on shutdown, so the ticks
+     * appended by a reload or by ingest() are mapped at the next start as well.
+     */
+    public void saveSnapshots() {
+        if (!snapshotEnabled) {
+            return;
+        }
+        for (Currency currency: cachedPrices.getSeries().keySet()) {
+            synchronized (writeLock(currency)) {
+                PriceSeries series = cachedPrices.get(currency);
+                if (series != null) {
+                    writeSnapshot(currency.name(), series);
                 }
             }
-        } catch (IOException e) {
-            LOGGER.error("error during price file reading {}", fileName, e);
         }
+    }
 
-        LOGGER.info("the currency file for {} is successfully read. {} rows", currency, map.size());
-        return map;
+    /**
+     * @return the published series of the currency, the file is loaded first if needed
+     */
+    PriceSeries getSeries(String currency) {
+        return ensurePricesLoaded(getCurrency(currency));
     }
 
-    private boolean isTimestampValid(String timestamp) {
-        try {
-            Long.parseLong(timestamp);
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
+    /**
+     * loads all the registered currencies. a currency whose file has disappeared is skipped
+     * with a warning, it does not fail the request.
+     */
+    private PriceSnapshot ensureAllPricesLoaded() {
+        PriceSnapshot snapshot = cachedPrices;
+        if (!discovered) {
+            discoverCurrencies();
+        }
+        if (snapshot.size() == symbols.size()) {
+            return snapshot;
+        }
+        for (Currency crypto: symbols.all()) {
+            if (snapshot.summary(crypto) == null) {
+                try {
+                    ensurePricesLoaded(crypto);
+                } catch (PriceFileNotFoundException e) {
+                    LOGGER.warn("skipping the currency {}: {}", crypto, e.getMessage());
+                }
+            }
         }
+        return cachedPrices;
+    }
+
+    private Object writeLock(Currency currency) {
+        return writeLocks.computeIfAbsent(currency, k -> new Object());
     }
 
-    private boolean isPriceValid(String price) {
+    private <T> T await(CompletableFuture<T> future) {
         try {
-            Double.parseDouble(price);
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
         }
     }
 
-    private LocalDateTime convertTimestampToLocalDateTime(long timestamp) {
-        return Instant.ofEpochMilli(timestamp)
-            .atZone(ZoneId.systemDefault())
-            .toLocalDateTime();
+    private void publish(Currency currency, PriceSeries series) {
+        synchronized (publishLock) {
+            cachedPrices = cachedPrices.with(currency, series);
+        }
     }
 
-    private boolean isValidPriceData(String[] tokens) {
-        return tokens.length == COLUMN_QUANTITY && !tokens[0].isEmpty()
-            && Character.isDigit(tokens[TIMESTAMP_INDEX].charAt(0));
+    /**
+     * records the use of the series for the eviction, only if there is a memory budget.
+     */
+    private void touch(Currency currency) {
+        if (memoryBudgetBytes > 0) {
+            accessTimes.computeIfAbsent(currency, k -> new AtomicLong()).set(System.nanoTime());
+        }
     }
 
-    private Optional<Double> getHighestPrice(Map<LocalDateTime, Double> map) {
-        return map.entrySet().stream()
-            .max(Comparator.comparingDouble(Map.Entry::getValue))
-            .map(Map.Entry::getValue);
+    /**
+     * evicts series until the loaded ones fit into memoryBudgetBytes. the series that has not been used
+     * for the longest time multiplied by its footprint goes first, so a large cold series is evicted before
+     * several small ones. must not be called with a write lock, the write lock of every evicted currency is taken.
+     *
+     * @param used the currency used by the caller, it is not evicted, null if all the currencies may be evicted
+     */
+    private void enforceMemoryBudget(Currency used) {
+        if (memoryBudgetBytes <= 0) {
+            return;
+        }
+        synchronized (evictionLock) {
+            long now = System.nanoTime();
+            long total = ingestedBytes();
+            List<EvictionCandidate> candidates = new ArrayList<>();
+            for (Map.Entry<Currency, PriceSeries> loaded: cachedPrices.getSeries().entrySet()) {
+                long bytes = loaded.getValue().footprintBytes();
+                total += bytes;
+                if (!loaded.getKey().equals(used)) {
+                    AtomicLong accessed = accessTimes.get(loaded.getKey());
+                    long idle = accessed == null ? Long.MAX_VALUE : now - accessed.get();
+                    candidates.add(new EvictionCandidate(loaded.getKey(), (double) idle * bytes));
+                }
+            }
+            candidates.sort(Comparator.comparingDouble(EvictionCandidate::weight).reversed());
+            for (int i = 0; i < candidates.size() && total > memoryBudgetBytes; i++) {
+                total -= evict(candidates.get(i).currency());
+            }
+            if (total > memoryBudgetBytes) {
+                LOGGER.warn("the loaded prices take {} bytes, more than the budget of {} bytes", total, memoryBudgetBytes);
+            }
+        }
     }
 
-    private Optional<Double> getLowestPrice(Map<LocalDateTime, Double> map) {
-        return map.entrySet().stream()
-            .min(Comparator.comparingDouble(Map.Entry::getValue))
-            .map(Map.Entry::getValue);
+    private record EvictionCandidate(Currency currency, double weight) {
     }
 
-    private Map<String, Double> getStat(Map<LocalDateTime, Double> map) {
-        Map<String, Double> result = new HashMap<>();
-        result.put("max", getHighestPrice(map).orElse(null));
-        result.put("min", getLowestPrice(map).orElse(null));
-        result.put("oldest", getOldestPrice(map).orElse(null));
-        result.put("newest", getNewestPrice(map).orElse(null));
-        return result;
+    /**
+     * drops the series of the currency, its summary and daily indexes stay in the snapshot.
+     * the ingested ticks stay in ingestedTicks, they are added again when the series is loaded.
+     * a series with ingested ticks is written to its snapshot as well, so they survive a restart.
+     *
+     * @return the footprint of the evicted series, 0 if it is not loaded
+     */
+    private long evict(Currency currency) {
+        synchronized (writeLock(currency)) {
+            PriceSeries series = cachedPrices.get(currency);
+            if (series == null) {
+                return 0;
+            }
+            if (ingestedTicks.containsKey(currency.name())) {
+                writeSnapshot(currency.name(), series);
+            }
+            synchronized (publishLock) {
+                cachedPrices = cachedPrices.without(currency);
+            }
+            metrics().eviction();
+            LOGGER.info("evicted the prices of {}, {} bytes", currency, series.footprintBytes());
+            return series.footprintBytes();
+        }
     }
 
-    private Optional<Double> getOldestPrice(Map<LocalDateTime, Double> map) {
-        return map.entrySet().stream().min(Map.Entry.comparingByKey()).map(Map.Entry::getValue);
+    /**
+     * picks up the changes of the price file of a loaded currency.
+     * if the file has grown only the new complete lines are parsed and appended to the series,
+     * if it has shrunk or was replaced it is read again. the new series is published
+     * as a new snapshot, the readers keep using the previous one until then.
+     * a currency that is not loaded yet is skipped, it is read on the first request.
+     * an evicted currency is loaded again, so its summary stays current.
+     * a file that is read again replaces the ticks added by ingest().
+     *
+     * @param currencyName crypto
+     */
+    public void reload(String currencyName) {
+        reload(currencyName, false);
     }
 
-    private Optional<Double> getNewestPrice(Map<LocalDateTime, Double> map) {
-        return map.entrySet().stream().max(Map.Entry.comparingByKey()).map(Map.Entry::getValue);
+    /**
+     * @param currencyName crypto
+     * @param replaced the file is known to be a new one, e.g. it was created or renamed in place,
+     * it is read again whatever its size
+     */
+    public void reload(String currencyName, boolean replaced) {
+        Currency currency = findCurrency(currencyName);
+        if (currency == null) {
+            return;
+        }
+        synchronized (writeLock(currency)) {
+            reloadSeries(currency, replaced);
+        }
+        enforceMemoryBudget(currency);
+    }
+
+    /**
+     * must be called with the write lock of the currency.
+     */
+    private void reloadSeries(Currency currency, boolean replaced) {
+        PriceSeries series = cachedPrices.get(currency);
+        if (series == null) {
+            if (cachedPrices.summary(currency) == null) {
+                return;
+            }
+            series = loadSeries(currency.name());
+            publish(currency, series);
+        }
+        File file = getFile(currency.name());
+        PriceFileState state = fileStates.get(currency.name());
+        if (replaced || isReplaced(file, state)) {
+            LOGGER.info("reading the price file for {} again", currency);
+            PriceSeries reread = readFile(currency.name());
+            writeSnapshot(currency.name(), reread);
+            ingestedTicks.remove(currency.name());
+            publish(currency, reread);
+            return;
+        }
+        long start = System.nanoTime();
+        PriceSeries.Builder ticks = PriceSeries.builder();
+        long offset = state.offset();
+        long lastModified = file.lastModified();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long end = PriceFileParser.lastLineEnd(channel, offset, size);
+            if (end == offset) {
+                return;
+            }
+            PriceFileParser.Result result = new PriceFileParser(currency.name()).parse(channel, offset, end, ticks);
+            metrics().fileRead(currency.name(), PriceMetrics.SOURCE_RELOAD, System.nanoTime() - start, result);
+            fileStates.put(currency.name(), new PriceFileState(end, size, lastModified, state.fileKey()));
+        } catch (IOException e) {
+            LOGGER.error("error during price file reading {}", file, e);
+            return;
+        }
+        PriceSeries appended = series.append(ticks);
+        publish(currency, appended);
+        LOGGER.info("the currency file for {} is reloaded in {} ms. {} new rows, {} rows",
+            currency, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), ticks.size(), appended.size());
+    }
+
+    /**
+     * a file that has shrunk, is older than the prices read from it or is another file under the same name,
+     * e.g. a rotated log or an atomic rename, cannot be appended to the series even if it has grown.
+     */
+    private static boolean isReplaced(File file, PriceFileState state) {
+        if (state == null || !file.exists()) {
+            return true;
+        }
+        if (file.length() < state.offset() || file.lastModified() < state.lastModified()) {
+            return true;
+        }
+        return state.fileKey() != null && !state.fileKey().equals(PriceFileState.fileKey(file));
+    }
+
+    private File getFile(String currency) {
+        return new File(directory + FileSystems.getDefault().getSeparator() + currency + FILE_SUFFIX);
+    }
+
+    /**
+     * public modifier for the unit tests.
+     *
+     * @param currency crypto
+     * @return series of the prices sorted by the timestamp
+     */
+    public PriceSeries readFile(String currency) {
+        long start = System.nanoTime();
+        PriceSeries.Builder builder = PriceSeries.builder();
+        File file = getFile(currency);
+        String fileName = file.getPath();
+        if (file.exists()) {
+            LOGGER.info("Reading file for currency: {}", currency);
+        } else {
+            throw new PriceFileNotFoundException("File not found: " + fileName);
+        }
+
+        PriceFileParser.Result result = null;
+        // taken before the parsing, a file changed meanwhile does not match its snapshot
+        long lastModified = file.lastModified();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            PriceFileParser parser = new PriceFileParser(currency);
+            long size = channel.size();
+            result = parallelParsing
+                ? parser.parseParallel(channel, 0, size, parserChunkSize, builder)
+                : parser.parse(channel, 0, size, builder);
+            // a reload parses the lines after this offset, the last line may still be written
+            fileStates.put(currency, new PriceFileState(PriceFileParser.lastLineEnd(channel, 0, size), size, lastModified,
+                PriceFileState.fileKey(file)));
+        } catch (IOException e) {
+            LOGGER.error("error during price file reading {}", fileName, e);
+        }
+
+        PriceSeries series = builder.build();
+        metrics().fileRead(currency, PriceMetrics.SOURCE_CSV, System.nanoTime() - start, result);
+        if (!series.isEmpty() && series.summary().getMin() == 0) {
+            LOGGER.error("Cannot calculate normalized range for {} (min price is zero).", currency);
+        }
+        LOGGER.info("the currency file for {} is successfully read in {} ms. {} rows, {} bytes in memory",
+            currency, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), series.size(), series.footprintBytes());
+        return series;
+    }
+
+    /**
+     * approximate heap footprint of the cached price series.
+     *
+     * @return map: {currency}: {size in bytes}
+     */
+    public Map<Currency, Long> getMemoryFootprint() {
+        Map<Currency, Long> result = new LinkedHashMap<>();
+        cachedPrices.getSeries().forEach((currency, series) -> result.put(currency, series.footprintBytes()));
+        return result;
     }
 }
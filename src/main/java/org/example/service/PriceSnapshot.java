@@ -0,0 +1,301 @@
+package org.example.service;
+
+import org.example.model.DailyIndex;
+import org.example.model.PriceSeries;
+import org.example.model.PriceSummary;
+import org.example.util.Currency;
+
+import java.time.ZoneId;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * immutable view of the loaded price series. a new snapshot is published
+ * for every change, so readers never see a partly built state and need no locks.
+ * the series are kept in an array indexed by the id of the symbol.
+ * the summary and the daily indexes of a series stay in the snapshot when the series is evicted,
+ * so the aggregated views and the per-day lookups do not need the ticks.
+ * the aggregated views are calculated on the first use and reused for the snapshot.
+ * every published snapshot with changed prices has a higher version than the previous one,
+ * an eviction keeps the version.
+ */
+final class PriceSnapshot {
+
+    static final PriceSnapshot EMPTY = new PriceSnapshot(new Currency[0], new PriceSeries[0], new PriceSummary[0],
+        new DailyIndex[0], newZoneIndexes(0), 0, 0);
+
+    private static final Comparator<Map.Entry<Currency, Double>> BY_NORMALIZED_RANGE =
+        Map.Entry.<Currency, Double>comparingByValue().reversed();
+
+    private final Currency[] currencies;
+    private final PriceSeries[] series;
+    private final PriceSummary[] summaries;
+    private final DailyIndex[] dailyIndexes;
+    /**
+     * the daily indexes in the other zones of the evicted series, null for the series in memory.
+     */
+    private final ConcurrentMap<ZoneId, DailyIndex>[] zoneIndexes;
+    private final int loaded;
+    private final long version;
+    private volatile Map<Currency, Map<String, Double>> allPrices;
+    private volatile List<Map.Entry<Currency, Double>> normalizedRanking;
+
+    private PriceSnapshot(Currency[] currencies, PriceSeries[] series, PriceSummary[] summaries,
+                          DailyIndex[] dailyIndexes, ConcurrentMap<ZoneId, DailyIndex>[] zoneIndexes,
+                          int loaded, long version) {
+        this.currencies = currencies;
+        this.series = series;
+        this.summaries = summaries;
+        this.dailyIndexes = dailyIndexes;
+        this.zoneIndexes = zoneIndexes;
+        this.loaded = loaded;
+        this.version = version;
+    }
+
+    /**
+     * @return a copy of this snapshot with the series of the currency replaced
+     */
+    PriceSnapshot with(Currency currency, PriceSeries prices) {
+        int length = Math.max(series.length, currency.id() + 1);
+        Currency[] currenciesCopy = Arrays.copyOf(currencies, length);
+        PriceSeries[] seriesCopy = Arrays.copyOf(series, length);
+        PriceSummary[] summariesCopy = Arrays.copyOf(summaries, length);
+        DailyIndex[] dailyIndexesCopy = Arrays.copyOf(dailyIndexes, length);
+        ConcurrentMap<ZoneId, DailyIndex>[] zoneIndexesCopy = Arrays.copyOf(zoneIndexes, length);
+        int count = summariesCopy[currency.id()] == null ? loaded + 1 : loaded;
+        currenciesCopy[currency.id()] = currency;
+        seriesCopy[currency.id()] = prices;
+        summariesCopy[currency.id()] = prices.summary();
+        dailyIndexesCopy[currency.id()] = prices.dailyIndex();
+        // the series keeps its own zone indexes
+        zoneIndexesCopy[currency.id()] = null;
+        return new PriceSnapshot(currenciesCopy, seriesCopy, summariesCopy, dailyIndexesCopy, zoneIndexesCopy,
+            count, version + 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ConcurrentMap<ZoneId, DailyIndex>[] newZoneIndexes(int length) {
+        return new ConcurrentMap[length];
+    }
+
+    /**
+     * the prices do not change, so the version and the aggregated views are kept.
+     *
+     * @return a copy of this snapshot without the series of the currency, its summary and daily indexes stay
+     */
+    PriceSnapshot without(Currency currency) {
+        if (get(currency) == null) {
+            return this;
+        }
+        PriceSeries[] seriesCopy = series.clone();
+        seriesCopy[currency.id()] = null;
+        ConcurrentMap<ZoneId, DailyIndex>[] zoneIndexesCopy = Arrays.copyOf(zoneIndexes, series.length);
+        zoneIndexesCopy[currency.id()] = new ConcurrentHashMap<>(series[currency.id()].zoneIndexes());
+        PriceSnapshot result = new PriceSnapshot(currencies, seriesCopy, summaries, dailyIndexes, zoneIndexesCopy,
+            loaded, version);
+        result.allPrices = allPrices;
+        result.normalizedRanking = normalizedRanking;
+        return result;
+    }
+
+    /**
+     * @return the series, null if the currency is not loaded yet or is evicted
+     */
+    PriceSeries get(Currency currency) {
+        return currency.id() < series.length ? series[currency.id()] : null;
+    }
+
+    /**
+     * @return the summary of the series, null if the currency has not been loaded yet
+     */
+    PriceSummary summary(Currency currency) {
+        return currency.id() < summaries.length ? summaries[currency.id()] : null;
+    }
+
+    /**
+     * @return number of the changes since the service has started
+     */
+    long version() {
+        return version;
+    }
+
+    /**
+     * @return the series of the currency with the id, null if it is not loaded or is evicted
+     */
+    PriceSeries get(int id) {
+        return series[id];
+    }
+
+    /**
+     * @return the summary of the currency with the id, null if it has not been loaded
+     */
+    PriceSummary summary(int id) {
+        return summaries[id];
+    }
+
+    /**
+     * @return the daily index in the default zone of the currency with the id, null if it has not been loaded
+     */
+    DailyIndex dailyIndex(int id) {
+        return dailyIndexes[id];
+    }
+
+    /**
+     * the indexes of an evicted series, new zones can be added to the map.
+     *
+     * @return the daily indexes in the other zones of the currency with the id, null if its series is in memory
+     */
+    ConcurrentMap<ZoneId, DailyIndex> zoneIndexes(int id) {
+        return id < zoneIndexes.length ? zoneIndexes[id] : null;
+    }
+
+    /**
+     * @return the currency with the id, null if it is not loaded
+     */
+    Currency currency(int id) {
+        return currencies[id];
+    }
+
+    /**
+     * @return the ids of the snapshot are less than the capacity
+     */
+    int capacity() {
+        return series.length;
+    }
+
+    /**
+     * @return number of the loaded currencies, including the evicted ones
+     */
+    int size() {
+        return loaded;
+    }
+
+    /**
+     * @return {currency}: {series} of the loaded currencies ordered by the id, without the evicted ones
+     */
+    Map<Currency, PriceSeries> getSeries() {
+        Map<Currency, PriceSeries> result = new LinkedHashMap<>();
+        for (int id = 0; id < series.length; id++) {
+            if (series[id] != null) {
+                result.put(currencies[id], series[id]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return unmodifiable map {currency}: {statistics} of the loaded currencies ordered by the id
+     */
+    Map<Currency, Map<String, Double>> getAllPrices() {
+        Map<Currency, Map<String, Double>> result = allPrices;
+        if (result == null) {
+            Map<Currency, Map<String, Double>> prices = new LinkedHashMap<>();
+            for (int id = 0; id < summaries.length; id++) {
+                if (summaries[id] != null) {
+                    prices.put(currencies[id], summaries[id].getStat());
+                }
+            }
+            result = Collections.unmodifiableMap(prices);
+            allPrices = result;
+        }
+        return result;
+    }
+
+    /**
+     * @return unmodifiable descending ranking of the loaded currencies by the normalized range
+     */
+    List<Map.Entry<Currency, Double>> getNormalizedRanking() {
+        List<Map.Entry<Currency, Double>> result = normalizedRanking;
+        if (result == null) {
+            int[] ids = new int[loaded];
+            double[] ranges = new double[summaries.length];
+            int count = 0;
+            for (int id = 0; id < summaries.length; id++) {
+                if (summaries[id] != null) {
+                    ids[count++] = id;
+                    ranges[id] = summaries[id].getNormalizedRange();
+                }
+            }
+            sortByRangeDescending(ids, new int[count], ranges, 0, count);
+            List<Map.Entry<Currency, Double>> ranking = new ArrayList<>(count);
+            for (int id: ids) {
+                ranking.add(rankingEntry(id));
+            }
+            result = Collections.unmodifiableList(ranking);
+            normalizedRanking = result;
+        }
+        return result;
+    }
+
+    /**
+     * stable merge sort of the ids [from, to) by the descending range, the ids with equal ranges
+     * stay in the ascending order. the ranges are compared as primitives, nothing is boxed.
+     */
+    private static void sortByRangeDescending(int[] ids, int[] buffer, double[] ranges, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        sortByRangeDescending(ids, buffer, ranges, from, middle);
+        sortByRangeDescending(ids, buffer, ranges, middle, to);
+        if (ranges[ids[middle - 1]] >= ranges[ids[middle]]) {
+            return;
+        }
+        System.arraycopy(ids, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right == to || left < middle && ranges[buffer[left]] >= ranges[buffer[right]]) {
+                ids[i] = buffer[left++];
+            } else {
+                ids[i] = buffer[right++];
+            }
+        }
+    }
+
+    /**
+     * selects the highest normalized ranges with a heap of the limit size instead of sorting all the currencies.
+     *
+     * @param limit maximum number of the entries
+     * @return unmodifiable descending ranking of at most limit currencies, like the head of getNormalizedRanking()
+     */
+    List<Map.Entry<Currency, Double>> getNormalizedRanking(int limit) {
+        List<Map.Entry<Currency, Double>> ranking = normalizedRanking;
+        if (ranking != null || limit >= loaded) {
+            ranking = getNormalizedRanking();
+            return ranking.subList(0, Math.min(limit, ranking.size()));
+        }
+        // the lowest kept entry is on the top of the heap, on equal ranges the higher id is dropped first
+        Comparator<Map.Entry<Currency, Double>> lowestFirst = Map.Entry.<Currency, Double>comparingByValue()
+            .thenComparing(entry -> entry.getKey().id(), Comparator.reverseOrder());
+        PriorityQueue<Map.Entry<Currency, Double>> heap = new PriorityQueue<>(limit + 1, lowestFirst);
+        for (int id = 0; id < summaries.length && limit > 0; id++) {
+            if (summaries[id] == null) {
+                continue;
+            }
+            double normalized = summaries[id].getNormalizedRange();
+            if (heap.size() < limit) {
+                heap.add(rankingEntry(id));
+            } else if (normalized > heap.peek().getValue()) {
+                heap.poll();
+                heap.add(rankingEntry(id));
+            }
+        }
+        List<Map.Entry<Currency, Double>> top = new ArrayList<>(heap);
+        top.sort(BY_NORMALIZED_RANGE.thenComparing(entry -> entry.getKey().id()));
+        return Collections.unmodifiableList(top);
+    }
+
+    private Map.Entry<Currency, Double> rankingEntry(int id) {
+        return new AbstractMap.SimpleImmutableEntry<>(currencies[id], summaries[id].getNormalizedRange());
+    }
+}
@@ -0,0 +1,243 @@
+package org.example.service;
+
+import org.example.model.PriceSeries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * keeps the parsed series of every currency in a binary {CRYPTO_NAME}.snapshot file,
+ * so a restart maps the snapshot instead of parsing the csv text again.
+ * a snapshot is used only while the csv file has the size and the modification time
+ * it had when it was parsed. a snapshot is mapped in one buffer, so it is at most MAX_BYTES long,
+ * a larger series is not stored and is parsed from the csv file at every start.
+ * <p>
+ * format, big endian:
+ * <pre>
+ * int magic, int version,
+ * long csv size, long csv modification time, long csv offset parsed,
+ * int ticks, int bytes of the timestamps, long crc32 of the prices and the timestamps,
+ * double[ticks] prices,
+ * timestamps: the first one and then the deltas to the previous one as unsigned varints
+ * </pre>
+ */
+final class SeriesSnapshotStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SeriesSnapshotStore.class);
+    private static final int MAGIC = 0x50524353;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 48;
+    private static final int CRC_POSITION = 40;
+    private static final String SUFFIX = ".snapshot";
+    static final long MAX_BYTES = Integer.MAX_VALUE;
+
+    private final Path directory;
+    private final long maxBytes;
+
+    SeriesSnapshotStore(Path directory) {
+        this(directory, MAX_BYTES);
+    }
+
+    /**
+     * @param maxBytes the largest snapshot that is written, at most MAX_BYTES
+     */
+    SeriesSnapshotStore(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = Math.min(maxBytes, MAX_BYTES);
+    }
+
+    /**
+     * the prices and the timestamps of the snapshot, the state of the csv file it was made from.
+     */
+    record Stored(PriceSeries series, PriceFileState state) {
+    }
+
+    /**
+     * @param currency crypto
+     * @param source the csv file of the currency
+     * @return the stored series, null if there is no snapshot, the csv file has changed since
+     * or the snapshot is corrupted
+     */
+    Stored read(String currency, File source) {
+        Path file = directory.resolve(currency + SUFFIX);
+        if (!Files.isRegularFile(file) || !source.exists()) {
+            return null;
+        }
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > MAX_BYTES) {
+                LOGGER.warn("the snapshot {} has an invalid size {}", file, size);
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                LOGGER.warn("the snapshot {} has an unknown format", file);
+                return null;
+            }
+            // the key is not stored, the file that matches the snapshot is the one it was made from
+            PriceFileState state = new PriceFileState(buffer.getLong(24), buffer.getLong(8), buffer.getLong(16),
+                PriceFileState.fileKey(source));
+            if (source.length() != state.length() || source.lastModified() != state.lastModified()) {
+                LOGGER.info("the price file of {} has changed since the snapshot", currency);
+                return null;
+            }
+            int count = buffer.getInt(32);
+            int timestampBytes = buffer.getInt(36);
+            if (count < 0 || timestampBytes < 0 || HEADER_BYTES + 8L * count + timestampBytes != size) {
+                LOGGER.warn("the snapshot {} is truncated", file);
+                return null;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(HEADER_BYTES, (int) size - HEADER_BYTES));
+            if (crc.getValue() != buffer.getLong(CRC_POSITION)) {
+                LOGGER.warn("the snapshot {} has a wrong checksum", file);
+                return null;
+            }
+
+            double[] prices = new double[count];
+            buffer.slice(HEADER_BYTES, 8 * count).asDoubleBuffer().get(prices);
+            long[] timestamps = decodeTimestamps(buffer, HEADER_BYTES + 8 * count, count);
+            if (timestamps == null) {
+                LOGGER.warn("the snapshot {} has malformed timestamps", file);
+                return null;
+            }
+            PriceSeries series = PriceSeries.of(timestamps, prices, count);
+            LOGGER.info("the snapshot for {} is read in {} ms. {} rows",
+                currency, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), count);
+            return new Stored(series, state);
+        } catch (IOException e) {
+            LOGGER.error("error during snapshot reading {}", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * @return the timestamps, null if they are not strictly ascending or do not fit into long
+     */
+    private static long[] decodeTimestamps(ByteBuffer buffer, int position, int count) {
+        long[] timestamps = new long[count];
+        int limit = buffer.limit();
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (position == limit || shift > 63) {
+                    return null;
+                }
+                b = buffer.get(position++);
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            if (i > 0 && (value <= 0 || previous > Long.MAX_VALUE - value)) {
+                return null;
+            }
+            previous = i == 0 ? value : previous + value;
+            timestamps[i] = previous;
+        }
+        return position == limit ? timestamps : null;
+    }
+
+    /**
+     * writes the snapshot to a temporary file and moves it in place, so a reader
+     * never sees a partly written snapshot. a snapshot that would be longer than the limit
+     * is not written and an existing one is deleted, it would be rejected by read().
+     *
+     * @param currency crypto
+     * @param series the prices, the timestamps must not be negative
+     * @param state the csv file the prices were read from
+     */
+    void write(String currency, PriceSeries series, PriceFileState state) {
+        long start = System.nanoTime();
+        Path file = directory.resolve(currency + SUFFIX);
+        Path temporary = null;
+        try {
+            // at least one byte per timestamp
+            if (HEADER_BYTES + 9L * series.size() > maxBytes) {
+                tooLarge(currency, file);
+                return;
+            }
+            Files.createDirectories(directory);
+            temporary = Files.createTempFile(directory, currency, SUFFIX);
+            CRC32 crc = new CRC32();
+            long size;
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                channel.position(HEADER_BYTES);
+                DataOutputStream out = new DataOutputStream(
+                    new CheckedOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), crc));
+                for (int i = 0; i < series.size(); i++) {
+                    out.writeDouble(series.priceAt(i));
+                }
+                long previous = 0;
+                for (int i = 0; i < series.size(); i++) {
+                    writeVarint(out, series.timestampAt(i) - previous);
+                    previous = series.timestampAt(i);
+                }
+                out.flush();
+                // the header is written last, the position is the size of the snapshot
+                size = channel.position();
+                int timestampBytes = (int) (size - HEADER_BYTES - 8L * series.size());
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(state.length())
+                    .putLong(state.lastModified())
+                    .putLong(state.offset())
+                    .putInt(series.size())
+                    .putInt(timestampBytes)
+                    .putLong(crc.getValue())
+                    .flip();
+                channel.write(header, 0);
+                channel.force(false);
+            }
+            if (size > maxBytes) {
+                Files.delete(temporary);
+                tooLarge(currency, file);
+                return;
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LOGGER.info("the snapshot for {} is written in {} ms. {} rows, {} bytes",
+                currency, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), series.size(), size);
+        } catch (IOException e) {
+            LOGGER.error("error during snapshot writing {}", file, e);
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException ignored) {
+                    // the next write creates another temporary file
+                }
+            }
+        }
+    }
+
+    private void tooLarge(String currency, Path file) throws IOException {
+        LOGGER.warn("the prices of {} do not fit into a snapshot of {} bytes, it is not written", currency, maxBytes);
+        Files.deleteIfExists(file);
+    }
+
+    private static void writeVarint(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+}
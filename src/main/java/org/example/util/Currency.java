@@ -1,10 +1,31 @@
 package org.example.util;
 
-public enum Currency {
+/**
+ * a crypto symbol registered in the SymbolRegistry.
+ * the id is dense: the symbols are numbered 0, 1, 2... in the order of registration,
+ * so the per-symbol data can be kept in arrays indexed by the id.
+ * there is one instance per name in a registry.
+ */
+public final class Currency {
 
-    BTC,
-    DOGE,
-    ETH,
-    LTC,
-    XRP
+    private final int id;
+    private final String name;
+
+    Currency(int id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public int id() {
+        return id;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
 }
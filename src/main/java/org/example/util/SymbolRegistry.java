@@ -0,0 +1,77 @@
+package org.example.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * the known crypto symbols. a symbol is registered once and keeps its id,
+ * the lookups are lock-free, the registration is synchronized.
+ */
+public final class SymbolRegistry {
+
+    private static final Pattern SYMBOL = Pattern.compile("[A-Z0-9]+");
+
+    private final Map<String, Currency> byName = new ConcurrentHashMap<>();
+    private volatile Currency[] byId = new Currency[0];
+
+    /**
+     * @param name symbol in any case
+     * @return the registered symbol, null if it is unknown
+     */
+    public Currency find(String name) {
+        return byName.get(name.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * registers the symbol if it is not registered yet.
+     *
+     * @param name symbol in any case, letters and digits
+     * @return the registered symbol
+     * @throws IllegalArgumentException if the name is not a valid symbol
+     */
+    public Currency register(String name) {
+        String symbol = name.toUpperCase(Locale.ROOT);
+        Currency currency = byName.get(symbol);
+        if (currency != null) {
+            return currency;
+        }
+        if (!isValid(symbol)) {
+            throw new IllegalArgumentException("Invalid symbol: " + name);
+        }
+        synchronized (this) {
+            currency = byName.get(symbol);
+            if (currency == null) {
+                Currency[] symbols = Arrays.copyOf(byId, byId.length + 1);
+                currency = new Currency(byId.length, symbol);
+                symbols[currency.id()] = currency;
+                byId = symbols;
+                byName.put(symbol, currency);
+            }
+            return currency;
+        }
+    }
+
+    public static boolean isValid(String symbol) {
+        return SYMBOL.matcher(symbol).matches();
+    }
+
+    public Currency get(int id) {
+        return byId[id];
+    }
+
+    public int size() {
+        return byId.length;
+    }
+
+    /**
+     * @return unmodifiable list of the registered symbols ordered by the id
+     */
+    public List<Currency> all() {
+        return Collections.unmodifiableList(Arrays.asList(byId));
+    }
+}
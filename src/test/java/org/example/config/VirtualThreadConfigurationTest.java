@@ -0,0 +1,45 @@
+package org.example.config;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+class VirtualThreadConfigurationTest {
+
+    @Test
+    void newVirtualThreadPerTaskExecutor() throws Exception {
+        ExecutorService executor = VirtualThreadConfiguration.newVirtualThreadPerTaskExecutor();
+
+        if (Runtime.version().feature() < 21) {
+            Assertions.assertNull(executor);
+            return;
+        }
+        Assertions.assertNotNull(executor);
+        Future<Boolean> virtual = executor.submit(() -> Thread.currentThread().toString().startsWith("VirtualThread"));
+        Assertions.assertTrue(virtual.get());
+        executor.shutdown();
+    }
+
+    @Test
+    void executor_shutDownWithContext() {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources()
+            .addFirst(new MapPropertySource("test", Map.of("serving.virtual-threads", "true")));
+        context.register(VirtualThreadConfiguration.class);
+        context.refresh();
+        ExecutorService executor = context.getBeanProvider(ExecutorService.class).getIfAvailable();
+
+        context.close();
+
+        if (Runtime.version().feature() < 21) {
+            Assertions.assertNull(executor);
+            return;
+        }
+        Assertions.assertTrue(executor.isShutdown());
+    }
+}
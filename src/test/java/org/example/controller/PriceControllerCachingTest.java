@@ -0,0 +1,104 @@
+package org.example.controller;
+
+import org.example.model.Tick;
+import org.example.service.PriceService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+class PriceControllerCachingTest {
+
+    @TempDir
+    Path directory;
+
+    private PriceService priceService;
+    private PriceController controller;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.writeString(directory.resolve("BTC_values.csv"), "timestamp,symbol,price\n1000,BTC,10.0\n2000,BTC,20.0\n");
+        Files.writeString(directory.resolve("ETH_values.csv"), "timestamp,symbol,price\n1000,ETH,4.0\n2000,ETH,5.0\n");
+        priceService = new PriceService();
+        priceService.directory = directory.toString();
+        controller = new PriceController(priceService);
+    }
+
+    @Test
+    void getAllPrices_serializedLikeJackson() {
+        ResponseEntity<?> response = controller.getAllPrices(null);
+
+        Assertions.assertEquals("{\"BTC\":" + json(priceService.getPrices("BTC").toString())
+            + ",\"ETH\":" + json(priceService.getPrices("ETH").toString()) + "}", body(response));
+        Assertions.assertEquals("[{\"BTC\":1.0},{\"ETH\":0.25}]", body(controller.getNormalizedForAll(null, null)));
+        Assertions.assertEquals("[{\"BTC\":1.0}]", body(controller.getNormalizedForAll(1, null)));
+    }
+
+    @Test
+    void getNormalizedForAll_roundedAtSerialization() {
+        controller.normalizedScale = 1;
+
+        Assertions.assertEquals("[{\"BTC\":1.0},{\"ETH\":0.3}]", body(controller.getNormalizedForAll(null, null)));
+        Assertions.assertEquals(0.25, priceService.getNormalized().get(1).getValue());
+    }
+
+    @Test
+    void getAllPrices_notModified() {
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        ResponseEntity<?> response = controller.getAllPrices(new ServletWebRequest(get(null), first));
+        String etag = first.getHeader("ETag");
+
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        ResponseEntity<?> notModified = controller.getAllPrices(new ServletWebRequest(get(etag), second));
+
+        Assertions.assertNotNull(response);
+        Assertions.assertNotNull(etag);
+        Assertions.assertNull(notModified);
+        Assertions.assertEquals(304, second.getStatus());
+        Assertions.assertSame(response.getBody(), controller.getAllPrices(null).getBody());
+    }
+
+    @Test
+    void getNormalizedForAll_newVersionAfterIngest() {
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        controller.getNormalizedForAll(null, new ServletWebRequest(get(null), first));
+        String etag = first.getHeader("ETag");
+
+        priceService.ingest("ETH", List.of(new Tick(3000L, 8.0)));
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        ResponseEntity<?> response = controller.getNormalizedForAll(null, new ServletWebRequest(get(etag), second));
+
+        Assertions.assertEquals(200, second.getStatus());
+        Assertions.assertNotEquals(etag, second.getHeader("ETag"));
+        Assertions.assertEquals("[{\"BTC\":1.0},{\"ETH\":1.0}]", body(response));
+    }
+
+    private static MockHttpServletRequest get(String etag) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/prices");
+        if (etag != null) {
+            request.addHeader("If-None-Match", etag);
+        }
+        return request;
+    }
+
+    private static String body(ResponseEntity<?> response) {
+        return new String((byte[]) response.getBody(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * {min=1.0, max=2.0} to {"min":1.0,"max":2.0}
+     */
+    private static String json(String map) {
+        return map.replaceAll("(\\w+)=", "\"$1\":").replace(", ", ",");
+    }
+}
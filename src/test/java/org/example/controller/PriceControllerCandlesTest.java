@@ -0,0 +1,76 @@
+package org.example.controller;
+
+import org.example.service.PriceService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+class PriceControllerCandlesTest {
+
+    @TempDir
+    Path directory;
+
+    private PriceController controller;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.writeString(directory.resolve("BTC_values.csv"), "timestamp,symbol,price\n"
+            + "60000,BTC,3.0\n90000,BTC,5.0\n100000,BTC,2.0\n180000,BTC,4.0\n");
+        PriceService priceService = new PriceService();
+        priceService.directory = directory.toString();
+        controller = new PriceController(priceService);
+    }
+
+    @Test
+    void getCandles() throws IOException {
+        Assertions.assertEquals("[{\"start\":60000,\"open\":3.0,\"high\":5.0,\"low\":2.0,\"close\":2.0},"
+            + "{\"start\":180000,\"open\":4.0,\"high\":4.0,\"low\":4.0,\"close\":4.0}]", candles("1m", null, null));
+        Assertions.assertEquals("[{\"start\":180000,\"open\":4.0,\"high\":4.0,\"low\":4.0,\"close\":4.0}]",
+            candles("1m", 60001L, null));
+        Assertions.assertEquals("[]", candles("1m", 0L, 60000L));
+        Assertions.assertEquals("[{\"start\":0,\"open\":3.0,\"high\":5.0,\"low\":2.0,\"close\":4.0}]",
+            candles("1d", null, null));
+    }
+
+    @Test
+    void getCandles_invalidInterval() {
+        Assertions.assertThrows(RuntimeException.class, () -> controller.getCandles("BTC", "5m", null, null));
+    }
+
+    @Test
+    void getReturns() throws IOException {
+        ResponseEntity<?> response = controller.getReturns("BTC", "1m", 2, null, null);
+
+        Assertions.assertEquals("[{\"time\":120000,\"close\":2.0,\"return\":0.0,\"volatility\":null},"
+            + "{\"time\":180000,\"close\":4.0,\"return\":" + Math.log(2.0)
+            + ",\"volatility\":" + Math.log(2.0) / Math.sqrt(2.0) + "}]", body(response));
+    }
+
+    @Test
+    void getReturns_tooManyIntervals() {
+        Assertions.assertThrows(ResponseStatusException.class,
+            () -> controller.getReturns("BTC", "1m", 2, 0L, Long.MAX_VALUE));
+    }
+
+    private String candles(String interval, Long from, Long to) throws IOException {
+        return body(controller.getCandles("BTC", interval, from, to));
+    }
+
+    private String body(ResponseEntity<?> response) throws IOException {
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingResponseBody) response.getBody()).writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
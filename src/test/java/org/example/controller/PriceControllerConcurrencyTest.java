@@ -0,0 +1,155 @@
+package org.example.controller;
+
+import org.example.model.PriceSeries;
+import org.example.service.PriceService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * hammers all the endpoints from many threads while the price files are still loading.
+ */
+class PriceControllerConcurrencyTest {
+    private static final LocalDate DAY = LocalDate.of(2022, 1, 1);
+    private static final List<String> CURRENCIES = List.of("BTC", "DOGE", "ETH", "LTC", "XRP");
+    private static final int ROWS = 1000;
+    private static final int THREADS = 32;
+    private static final int CALLS_PER_THREAD = 40;
+    private static final int ROUNDS = 5;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void writePriceFiles() throws IOException {
+        long start = DAY.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        for (int index = 0; index < CURRENCIES.size(); index++) {
+            String currency = CURRENCIES.get(index);
+            List<String> lines = new ArrayList<>();
+            lines.add("timestamp,symbol,price");
+            for (int i = 0; i < ROWS; i++) {
+                double price = 100 + i % (10 * (index + 1));
+                lines.add((start + i * 60_000L) + "," + currency + "," + price);
+            }
+            Files.write(directory.resolve(currency + "_values.csv"), lines);
+        }
+    }
+
+    @Test
+    void coldStart_everyFileParsedOnce() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            Map<String, AtomicInteger> reads = new ConcurrentHashMap<>();
+            PriceService priceService = new PriceService() {
+                @Override
+                public PriceSeries readFile(String currency) {
+                    reads.computeIfAbsent(currency, k -> new AtomicInteger()).incrementAndGet();
+                    return super.readFile(currency);
+                }
+            };
+            priceService.directory = directory.toString();
+            PriceController controller = new PriceController(priceService);
+
+            List<ResponseEntity<?>> responses = hammer(controller);
+
+            for (ResponseEntity<?> response: responses) {
+                Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+            }
+            for (String currency: CURRENCIES) {
+                Assertions.assertEquals(1, reads.get(currency).get(), currency + " parsed more than once");
+            }
+            Assertions.assertEquals("XRP", controller.getNormalizedForDay(DAY, null).getBody());
+        }
+    }
+
+    @Test
+    void warmUp_loadsEveryFileOnceBeforeReady() throws Exception {
+        Map<String, AtomicInteger> reads = new ConcurrentHashMap<>();
+        PriceService priceService = new PriceService() {
+            @Override
+            public PriceSeries readFile(String currency) {
+                reads.computeIfAbsent(currency, k -> new AtomicInteger()).incrementAndGet();
+                return super.readFile(currency);
+            }
+        };
+        priceService.directory = directory.toString();
+        priceService.warmUpEnabled = true;
+        priceService.warmUpThreads = 2;
+
+        priceService.warmUp();
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+        while (!priceService.isReady() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        Assertions.assertTrue(priceService.isReady());
+        for (String currency: CURRENCIES) {
+            Assertions.assertEquals(1, reads.get(currency).get());
+        }
+        Assertions.assertEquals(HttpStatus.OK, new PriceController(priceService).getAllPrices(null).getStatusCode());
+        for (String currency: CURRENCIES) {
+            Assertions.assertEquals(1, reads.get(currency).get());
+        }
+    }
+
+    private List<ResponseEntity<?>> hammer(PriceController controller) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<ResponseEntity<?>>>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int offset = thread;
+            futures.add(executor.submit(() -> {
+                start.await();
+                List<ResponseEntity<?>> responses = new ArrayList<>();
+                for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                    ResponseEntity<?> response = switch ((offset + i) % 4) {
+                        case 0 -> controller.getPrices(CURRENCIES.get(i % CURRENCIES.size()));
+                        case 1 -> assertAllCurrencies(controller.getAllPrices(null));
+                        case 2 -> assertAllCurrencies(controller.getNormalizedForAll(null, null));
+                        default -> controller.getNormalizedForDay(DAY, null);
+                    };
+                    responses.add(response);
+                }
+                return responses;
+            }));
+        }
+        start.countDown();
+
+        List<ResponseEntity<?>> responses = new ArrayList<>();
+        for (Future<List<ResponseEntity<?>>> future: futures) {
+            responses.addAll(future.get(1, TimeUnit.MINUTES));
+        }
+        executor.shutdown();
+        return responses;
+    }
+
+    /**
+     * the aggregated endpoints must never see a partly loaded set of currencies.
+     */
+    private ResponseEntity<?> assertAllCurrencies(ResponseEntity<?> response) {
+        String json = new String((byte[]) response.getBody(), StandardCharsets.UTF_8);
+        for (String currency: CURRENCIES) {
+            Assertions.assertTrue(json.contains("\"" + currency + "\""), currency + " missing in " + json);
+        }
+        return response;
+    }
+}
@@ -0,0 +1,338 @@
+package org.example.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Random;
+
+class PriceSeriesTest {
+
+    @Test
+    void build_sortsByTimestamp() {
+        PriceSeries series = PriceSeries.builder()
+            .add(3000L, 3.0)
+            .add(1000L, 1.0)
+            .add(2000L, 2.0)
+            .build();
+
+        Assertions.assertEquals(3, series.size());
+        Assertions.assertEquals(1000L, series.timestampAt(0));
+        Assertions.assertEquals(1.0, series.priceAt(0));
+        Assertions.assertEquals(3000L, series.timestampAt(2));
+        Assertions.assertEquals(3.0, series.priceAt(2));
+    }
+
+    @Test
+    void build_duplicateTimestampLastWins() {
+        PriceSeries series = PriceSeries.builder()
+            .add(2000L, 2.0)
+            .add(1000L, 1.0)
+            .add(2000L, 5.0)
+            .build();
+
+        Assertions.assertEquals(2, series.size());
+        Assertions.assertEquals(5.0, series.priceAt(1));
+    }
+
+    @Test
+    void lowerBound() {
+        PriceSeries series = PriceSeries.builder()
+            .add(1000L, 1.0)
+            .add(2000L, 2.0)
+            .build();
+
+        Assertions.assertEquals(0, series.lowerBound(0L));
+        Assertions.assertEquals(1, series.lowerBound(1500L));
+        Assertions.assertEquals(1, series.lowerBound(2000L));
+        Assertions.assertEquals(2, series.lowerBound(2500L));
+    }
+
+    @Test
+    void summary() {
+        PriceSeries series = PriceSeries.builder()
+            .add(3000L, 3.0)
+            .add(1000L, 2.0)
+            .add(2000L, 5.0)
+            .add(4000L, 4.0)
+            .build();
+
+        PriceSummary summary = series.summary();
+
+        Assertions.assertEquals(2.0, summary.getMin());
+        Assertions.assertEquals(5.0, summary.getMax());
+        Assertions.assertEquals(2.0, summary.getOldest());
+        Assertions.assertEquals(4.0, summary.getNewest());
+        Assertions.assertEquals(1.5, summary.getNormalizedRange());
+        Assertions.assertEquals(5.0, summary.getStat().get("max"));
+    }
+
+    @Test
+    void summary_empty() {
+        PriceSummary summary = PriceSeries.builder().build().summary();
+
+        Assertions.assertTrue(summary.isEmpty());
+        Assertions.assertNull(summary.getStat().get("max"));
+        Assertions.assertEquals(0.0, summary.getNormalizedRange());
+    }
+
+    @Test
+    void dailyIndex() {
+        LocalDate day = LocalDate.of(2022, 1, 1);
+        PriceSeries series = PriceSeries.builder()
+            .add(toEpochMilli(day.atTime(10, 0)), 3.0)
+            .add(toEpochMilli(day.atTime(12, 0)), 5.0)
+            .add(toEpochMilli(day.atTime(14, 0)), 2.0)
+            .add(toEpochMilli(day.atTime(16, 0)), 4.0)
+            .add(toEpochMilli(day.plusDays(2).atTime(10, 0)), 7.0)
+            .build();
+
+        DailyIndex index = series.dailyIndex();
+        int slot = index.slot(day);
+
+        Assertions.assertEquals(3.0, index.open(slot));
+        Assertions.assertEquals(5.0, index.high(slot));
+        Assertions.assertEquals(2.0, index.low(slot));
+        Assertions.assertEquals(4.0, index.close(slot));
+        Assertions.assertEquals(DailyIndex.NO_DATA, index.slot(day.plusDays(1)));
+        Assertions.assertEquals(7.0, index.high(index.slot(day.plusDays(2))));
+        Assertions.assertEquals(DailyIndex.NO_DATA, index.slot(day.minusDays(1)));
+        Assertions.assertEquals(DailyIndex.NO_DATA, index.slot(day.plusDays(3)));
+    }
+
+    @Test
+    void dailyIndex_zoneSameAsScan() {
+        Random random = new Random(42);
+        PriceSeries series = PriceSeries.empty();
+        long timestamp = 1_640_000_000_000L;
+        for (int batch = 0; batch < 20; batch++) {
+            PriceSeries.Builder ticks = PriceSeries.builder();
+            for (int i = random.nextInt(300); i > 0; i--) {
+                timestamp += 1 + random.nextInt(3_600_000);
+                ticks.add(timestamp, random.nextInt(100_000) / 100.0);
+            }
+            series = series.append(ticks);
+            if (batch == 10) {
+                series.dailyIndex(ZoneId.of("Asia/Tokyo"));
+            }
+        }
+        long[] timestamps = new long[series.size()];
+        double[] prices = new double[series.size()];
+        for (int i = 0; i < series.size(); i++) {
+            timestamps[i] = series.timestampAt(i);
+            prices[i] = series.priceAt(i);
+        }
+
+        for (ZoneId zone: new ZoneId[] {ZoneId.of("Asia/Tokyo"), ZoneId.of("America/New_York"), ZoneId.of("UTC")}) {
+            DailyIndex index = series.dailyIndex(zone);
+            DailyIndex expected = DailyIndex.of(timestamps, prices, timestamps.length, zone);
+            Assertions.assertSame(index, series.dailyIndex(zone));
+            LocalDate first = Instant.ofEpochMilli(timestamps[0]).atZone(zone).toLocalDate();
+            LocalDate last = Instant.ofEpochMilli(timestamp).atZone(zone).toLocalDate();
+            for (LocalDate day = first.minusDays(1); !day.isAfter(last.plusDays(1)); day = day.plusDays(1)) {
+                int slot = expected.slot(day);
+                Assertions.assertEquals(slot, index.slot(day));
+                if (slot != DailyIndex.NO_DATA) {
+                    Assertions.assertEquals(expected.open(slot), index.open(slot));
+                    Assertions.assertEquals(expected.high(slot), index.high(slot));
+                    Assertions.assertEquals(expected.low(slot), index.low(slot));
+                    Assertions.assertEquals(expected.close(slot), index.close(slot));
+                }
+            }
+        }
+        Assertions.assertSame(series.dailyIndex(), series.dailyIndex(null));
+    }
+
+    @Test
+    void append_newerTicks() {
+        LocalDate day = LocalDate.of(2022, 1, 1);
+        PriceSeries series = PriceSeries.builder()
+            .add(toEpochMilli(day.atTime(10, 0)), 3.0)
+            .add(toEpochMilli(day.atTime(12, 0)), 5.0)
+            .build();
+
+        PriceSeries appended = series.append(PriceSeries.builder()
+            .add(toEpochMilli(day.atTime(14, 0)), 2.0)
+            .add(toEpochMilli(day.plusDays(1).atTime(10, 0)), 7.0));
+
+        Assertions.assertEquals(2, series.size());
+        Assertions.assertEquals(5.0, series.summary().getNewest());
+        Assertions.assertEquals(3.0, series.dailyIndex().low(series.dailyIndex().slot(day)));
+        Assertions.assertEquals(4, appended.size());
+        Assertions.assertEquals(2.0, appended.summary().getMin());
+        Assertions.assertEquals(7.0, appended.summary().getMax());
+        Assertions.assertEquals(3.0, appended.summary().getOldest());
+        Assertions.assertEquals(7.0, appended.summary().getNewest());
+        DailyIndex index = appended.dailyIndex();
+        Assertions.assertEquals(2.0, index.low(index.slot(day)));
+        Assertions.assertEquals(2.0, index.close(index.slot(day)));
+        Assertions.assertEquals(7.0, index.open(index.slot(day.plusDays(1))));
+    }
+
+    @Test
+    void append_toSameVersionTwice() {
+        PriceSeries series = PriceSeries.builder().add(1000L, 1.0).build();
+
+        PriceSeries first = series.append(PriceSeries.builder().add(2000L, 2.0));
+        PriceSeries second = series.append(PriceSeries.builder().add(2000L, 3.0));
+
+        Assertions.assertEquals(2.0, first.priceAt(1));
+        Assertions.assertEquals(3.0, second.priceAt(1));
+        Assertions.assertEquals(2.0, first.summary().getMax());
+    }
+
+    @Test
+    void append_olderTicksRebuild() {
+        PriceSeries series = PriceSeries.builder()
+            .add(1000L, 1.0)
+            .add(3000L, 3.0)
+            .build();
+
+        PriceSeries appended = series.append(PriceSeries.builder()
+            .add(2000L, 2.0)
+            .add(3000L, 4.0));
+
+        Assertions.assertEquals(3, appended.size());
+        Assertions.assertEquals(2000L, appended.timestampAt(1));
+        Assertions.assertEquals(4.0, appended.priceAt(2));
+        Assertions.assertEquals(4.0, appended.summary().getNewest());
+        Assertions.assertEquals(3.0, series.priceAt(1));
+    }
+
+    @Test
+    void summary_range() {
+        PriceSeries series = PriceSeries.builder()
+            .add(1000L, 3.0)
+            .add(2000L, 5.0)
+            .add(3000L, 2.0)
+            .add(4000L, 4.0)
+            .build();
+
+        PriceSummary summary = series.summary(1500L, 4000L);
+
+        Assertions.assertEquals(2.0, summary.getMin());
+        Assertions.assertEquals(5.0, summary.getMax());
+        Assertions.assertEquals(5.0, summary.getOldest());
+        Assertions.assertEquals(2.0, summary.getNewest());
+        Assertions.assertEquals(1.5, summary.getNormalizedRange());
+        Assertions.assertTrue(series.summary(4001L, 5000L).isEmpty());
+        Assertions.assertTrue(series.summary(2000L, 2000L).isEmpty());
+    }
+
+    @Test
+    void summary_rangeSameAsScan() {
+        Random random = new Random(42);
+        PriceSeries series = PriceSeries.empty();
+        long timestamp = 0;
+        for (int batch = 0; batch < 50; batch++) {
+            PriceSeries.Builder ticks = PriceSeries.builder();
+            for (int i = random.nextInt(300); i > 0; i--) {
+                timestamp += 1 + random.nextInt(10);
+                ticks.add(timestamp, random.nextInt(100_000) / 100.0);
+            }
+            series = series.append(ticks);
+        }
+
+        for (int query = 0; query < 2000; query++) {
+            long from = random.nextInt((int) timestamp + 10);
+            long to = from + random.nextInt(query % 2 == 0 ? 100 : (int) timestamp + 10);
+            PriceSummary summary = series.summary(from, to);
+
+            Double min = null;
+            Double max = null;
+            for (int i = 0; i < series.size(); i++) {
+                if (series.timestampAt(i) >= from && series.timestampAt(i) < to) {
+                    min = min == null ? series.priceAt(i) : Math.min(min, series.priceAt(i));
+                    max = max == null ? series.priceAt(i) : Math.max(max, series.priceAt(i));
+                }
+            }
+            Assertions.assertEquals(min, summary.getMin());
+            Assertions.assertEquals(max, summary.getMax());
+        }
+    }
+
+    @Test
+    void candles() {
+        PriceSeries series = PriceSeries.builder()
+            .add(3_600_000L, 3.0)
+            .add(3_600_000L + 60_000L, 5.0)
+            .add(3_600_000L + 120_000L, 2.0)
+            .add(2 * 3_600_000L - 1, 4.0)
+            .add(3 * 3_600_000L + 10, 7.0)
+            .build();
+
+        Candles hours = series.candles(CandleInterval.ONE_HOUR);
+
+        Assertions.assertEquals(2, hours.size());
+        Assertions.assertEquals(3_600_000L, hours.start(0));
+        Assertions.assertEquals(3.0, hours.open(0));
+        Assertions.assertEquals(5.0, hours.high(0));
+        Assertions.assertEquals(2.0, hours.low(0));
+        Assertions.assertEquals(4.0, hours.close(0));
+        Assertions.assertEquals(3 * 3_600_000L, hours.start(1));
+        Assertions.assertEquals(7.0, hours.open(1));
+        Assertions.assertEquals(1, hours.lowerBound(3_600_001L));
+        Assertions.assertEquals(2, hours.lowerBound(3 * 3_600_000L + 1));
+        Assertions.assertEquals(5, series.candles(CandleInterval.ONE_MINUTE).size());
+        Assertions.assertEquals(1, series.candles(CandleInterval.ONE_DAY).size());
+    }
+
+    @Test
+    void candles_minuteBuiltOnFirstUse() {
+        PriceSeries series = PriceSeries.builder()
+            .add(0L, 1.0)
+            .add(60_000L, 2.0)
+            .add(120_000L, 3.0)
+            .build();
+        long footprint = series.footprintBytes();
+
+        Candles minutes = series.candles(CandleInterval.ONE_MINUTE);
+
+        Assertions.assertTrue(series.footprintBytes() > footprint);
+        Assertions.assertSame(minutes, series.candles(CandleInterval.ONE_MINUTE));
+        PriceSeries appended = series.append(PriceSeries.builder().add(180_000L, 4.0));
+        Assertions.assertTrue(appended.footprintBytes() > footprint);
+        Assertions.assertEquals(4, appended.candles(CandleInterval.ONE_MINUTE).size());
+        Assertions.assertEquals(4.0, appended.candles(CandleInterval.ONE_MINUTE).close(3));
+        Assertions.assertEquals(3, series.candles(CandleInterval.ONE_MINUTE).size());
+    }
+
+    @Test
+    void candles_appendedSameAsBuilt() {
+        Random random = new Random(42);
+        PriceSeries series = PriceSeries.empty();
+        PriceSeries.Builder all = PriceSeries.builder();
+        long timestamp = 0;
+        for (int batch = 0; batch < 50; batch++) {
+            PriceSeries.Builder ticks = PriceSeries.builder();
+            for (int i = random.nextInt(300); i > 0; i--) {
+                timestamp += 1 + random.nextInt(100_000);
+                double price = random.nextInt(100_000) / 100.0;
+                ticks.add(timestamp, price);
+                all.add(timestamp, price);
+            }
+            series = series.append(ticks);
+        }
+        PriceSeries built = all.build();
+
+        for (CandleInterval interval: CandleInterval.values()) {
+            Candles appended = series.candles(interval);
+            Candles expected = built.candles(interval);
+            Assertions.assertEquals(expected.size(), appended.size());
+            for (int i = 0; i < expected.size(); i++) {
+                Assertions.assertEquals(expected.start(i), appended.start(i));
+                Assertions.assertEquals(expected.open(i), appended.open(i));
+                Assertions.assertEquals(expected.high(i), appended.high(i));
+                Assertions.assertEquals(expected.low(i), appended.low(i));
+                Assertions.assertEquals(expected.close(i), appended.close(i));
+            }
+        }
+    }
+
+    private static long toEpochMilli(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,152 @@
+package org.example.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+class ReturnsTest {
+
+    private static final long MINUTE = 60_000L;
+
+    @Test
+    void of_alignsToGrid() {
+        PriceSeries series = PriceSeries.builder()
+            .add(2 * MINUTE + 10, 1.0)
+            .add(2 * MINUTE + 20, 2.0)
+            .add(5 * MINUTE, 4.0)
+            .build();
+
+        Returns returns = Returns.of(series.candles(CandleInterval.ONE_MINUTE), 30_000L, 7 * MINUTE);
+
+        // grid 0..6 minutes, closes NaN, NaN, 2, 2, 2, 4, 4
+        Assertions.assertEquals(6, returns.size());
+        Assertions.assertEquals(2, returns.first());
+        Assertions.assertEquals(3 * MINUTE, returns.time(2));
+        Assertions.assertEquals(2.0, returns.close(2));
+        Assertions.assertEquals(0.0, returns.value(2));
+        Assertions.assertEquals(Math.log(2.0), returns.value(4));
+        Assertions.assertEquals(0.0, returns.value(5));
+        Assertions.assertEquals(Math.log(2.0) / 4, returns.mean(), 1e-15);
+    }
+
+    @Test
+    void of_carriesCloseBeforeRange() {
+        PriceSeries series = PriceSeries.builder()
+            .add(0L, 1.0)
+            .add(3 * MINUTE, 3.0)
+            .build();
+
+        Returns returns = Returns.of(series.candles(CandleInterval.ONE_MINUTE), 2 * MINUTE, 4 * MINUTE);
+
+        Assertions.assertEquals(1, returns.size());
+        Assertions.assertEquals(0, returns.first());
+        Assertions.assertEquals(Math.log(3.0), returns.value(0));
+        Assertions.assertTrue(Double.isNaN(returns.standardDeviation()));
+    }
+
+    @Test
+    void rollingStandardDeviation_sameAsTwoPass() {
+        Returns returns = randomWalk(new Random(42), 500, 17);
+
+        double[] rolling = returns.rollingStandardDeviation(24);
+
+        for (int i = 0; i < returns.size(); i++) {
+            if (i < returns.first() + 23) {
+                Assertions.assertTrue(Double.isNaN(rolling[i]));
+                continue;
+            }
+            double mean = 0;
+            for (int t = i - 23; t <= i; t++) {
+                mean += returns.value(t) / 24;
+            }
+            double squares = 0;
+            for (int t = i - 23; t <= i; t++) {
+                squares += (returns.value(t) - mean) * (returns.value(t) - mean);
+            }
+            Assertions.assertEquals(Math.sqrt(squares / 23), rolling[i], 1e-12);
+        }
+    }
+
+    @Test
+    void correlation_sameAsTwoPass() {
+        Random random = new Random(7);
+        List<Returns> returns = List.of(randomWalk(random, 400, 0), randomWalk(random, 400, 50),
+            randomWalk(random, 400, 120));
+
+        double[][] matrix = Returns.correlation(returns);
+
+        for (int i = 0; i < returns.size(); i++) {
+            Assertions.assertEquals(1.0, matrix[i][i], 1e-12);
+            for (int j = 0; j < returns.size(); j++) {
+                Assertions.assertEquals(matrix[j][i], matrix[i][j]);
+                Assertions.assertEquals(twoPass(returns.get(i), returns.get(j)), matrix[i][j], 1e-12);
+            }
+        }
+    }
+
+    @Test
+    void correlation_constantAndOpposite() {
+        PriceSeries.Builder up = PriceSeries.builder();
+        PriceSeries.Builder down = PriceSeries.builder();
+        PriceSeries.Builder flat = PriceSeries.builder();
+        for (int i = 0; i < 10; i++) {
+            double price = i % 2 == 0 ? 1.0 : 2.0;
+            up.add(i * MINUTE, price);
+            down.add(i * MINUTE, 3.0 - price);
+            flat.add(i * MINUTE, 5.0);
+        }
+        List<Returns> returns = List.of(
+            Returns.of(up.build().candles(CandleInterval.ONE_MINUTE), 0, 10 * MINUTE),
+            Returns.of(down.build().candles(CandleInterval.ONE_MINUTE), 0, 10 * MINUTE),
+            Returns.of(flat.build().candles(CandleInterval.ONE_MINUTE), 0, 10 * MINUTE));
+
+        double[][] matrix = Returns.correlation(returns);
+
+        Assertions.assertEquals(-1.0, matrix[0][1], 1e-12);
+        Assertions.assertTrue(Double.isNaN(matrix[0][2]));
+        Assertions.assertTrue(Double.isNaN(matrix[2][2]));
+    }
+
+    @Test
+    void correlation_differentGrids() {
+        Candles candles = PriceSeries.builder().add(0L, 1.0).build().candles(CandleInterval.ONE_MINUTE);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Returns.correlation(
+            List.of(Returns.of(candles, 0, 10 * MINUTE), Returns.of(candles, 0, 20 * MINUTE))));
+    }
+
+    /**
+     * a minute grid of the given size, the prices start at the given minute.
+     */
+    private static Returns randomWalk(Random random, int size, int firstMinute) {
+        PriceSeries.Builder ticks = PriceSeries.builder();
+        double price = 100;
+        for (int minute = firstMinute; minute < size; minute++) {
+            price *= Math.exp(random.nextGaussian() * 0.01);
+            ticks.add(minute * MINUTE + random.nextInt(60_000), price);
+        }
+        return Returns.of(ticks.build().candles(CandleInterval.ONE_MINUTE), 0, size * MINUTE);
+    }
+
+    private static double twoPass(Returns x, Returns y) {
+        int from = Math.max(x.first(), y.first());
+        int n = x.size() - from;
+        double meanX = 0;
+        double meanY = 0;
+        for (int t = from; t < x.size(); t++) {
+            meanX += x.value(t) / n;
+            meanY += y.value(t) / n;
+        }
+        double covariance = 0;
+        double varianceX = 0;
+        double varianceY = 0;
+        for (int t = from; t < x.size(); t++) {
+            covariance += (x.value(t) - meanX) * (y.value(t) - meanY);
+            varianceX += (x.value(t) - meanX) * (x.value(t) - meanX);
+            varianceY += (y.value(t) - meanY) * (y.value(t) - meanY);
+        }
+        return covariance / Math.sqrt(varianceX * varianceY);
+    }
+}
@@ -0,0 +1,114 @@
+package org.example.service;
+
+import org.example.model.PriceSeries;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+class PriceFileParserTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void parse() throws IOException {
+        PriceSeries.Builder builder = PriceSeries.builder();
+        PriceFileParser.Result result = parse(String.join("\n",
+            "timestamp,symbol,price",
+            "1641009600000,BTC,46813.21",
+            "1641020400000,BTC,4.697961e4\r",
+            "1641031200000,ETH,3700.5",
+            "1641042000000,BTC,",
+            "1641042000000,BTC,12a",
+            "164104200000x,BTC,1.0",
+            "1641052800000,BTC,-0.5,",
+            "1641063600000,BTC,46000"), builder);
+        PriceSeries series = builder.build();
+
+        Assertions.assertEquals(4, result.rows());
+        Assertions.assertEquals(2, result.malformedRows());
+        Assertions.assertEquals(2, result.unknownRows());
+        Assertions.assertEquals(4, series.size());
+        Assertions.assertEquals(46813.21, series.priceAt(0));
+        Assertions.assertEquals(46979.61, series.priceAt(1));
+        Assertions.assertEquals(-0.5, series.priceAt(2));
+        Assertions.assertEquals(1641063600000L, series.timestampAt(3));
+        Assertions.assertEquals(46000.0, series.priceAt(3));
+    }
+
+    @Test
+    void parse_sameAsDoubleParseDouble() throws IOException {
+        String[] prices = {"0.1", "46813.21", "1E-7", ".5", "5.", "+7", "1.5f", " 2.25 ",
+            "12345678901234567890.123", "0.000000000000000000000000001234", "3.141592653589793238"};
+        StringBuilder file = new StringBuilder();
+        for (int i = 0; i < prices.length; i++) {
+            file.append(i).append(",BTC,").append(prices[i]).append('\n');
+        }
+        PriceSeries.Builder builder = PriceSeries.builder();
+        parse(file.toString(), builder);
+        PriceSeries series = builder.build();
+
+        Assertions.assertEquals(prices.length, series.size());
+        for (int i = 0; i < prices.length; i++) {
+            Assertions.assertEquals(Double.parseDouble(prices[i]), series.priceAt(i));
+        }
+    }
+
+    @Test
+    void parse_nonFinitePricesAreMalformed() throws IOException {
+        PriceSeries.Builder builder = PriceSeries.builder();
+        PriceFileParser.Result result = parse("1,BTC,NaN\n2,BTC,Infinity\n3,BTC,1e400\n", builder);
+
+        Assertions.assertEquals(0, result.rows());
+        Assertions.assertEquals(3, result.malformedRows());
+    }
+
+    @Test
+    void parseParallel_sameAsSequential() throws IOException {
+        Random random = new Random(42);
+        StringBuilder content = new StringBuilder("timestamp,symbol,price\n");
+        for (int i = 0; i < 5000; i++) {
+            long timestamp = 1641009600000L + random.nextInt(3000) * 1000L;
+            switch (random.nextInt(20)) {
+                case 0 -> content.append(timestamp).append(",BTC,malformed\n");
+                case 1 -> content.append(timestamp).append(",ETH,").append(random.nextInt(5000)).append('\n');
+                case 2 -> content.append("unknown structure\r\n");
+                default -> content.append(timestamp).append(",BTC,").append(random.nextDouble() * 50000).append('\n');
+            }
+        }
+        Path file = directory.resolve("BTC_values.csv");
+        Files.writeString(file, content);
+
+        PriceSeries.Builder sequentialBuilder = PriceSeries.builder();
+        PriceSeries.Builder parallelBuilder = PriceSeries.builder();
+        PriceFileParser.Result sequential;
+        PriceFileParser.Result parallel;
+        try (FileChannel channel = FileChannel.open(file)) {
+            sequential = new PriceFileParser("BTC").parse(channel, 0, channel.size(), sequentialBuilder);
+            parallel = new PriceFileParser("BTC").parseParallel(channel, 0, channel.size(), 1000, parallelBuilder);
+        }
+        PriceSeries expected = sequentialBuilder.build();
+        PriceSeries actual = parallelBuilder.build();
+
+        Assertions.assertEquals(sequential, parallel);
+        Assertions.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assertions.assertEquals(expected.timestampAt(i), actual.timestampAt(i));
+            Assertions.assertEquals(expected.priceAt(i), actual.priceAt(i));
+        }
+    }
+
+    private PriceFileParser.Result parse(String content, PriceSeries.Builder builder) throws IOException {
+        Path file = directory.resolve("BTC_values.csv");
+        Files.writeString(file, content);
+        try (FileChannel channel = FileChannel.open(file)) {
+            return new PriceFileParser("BTC").parse(channel, 0, channel.size(), builder);
+        }
+    }
+}
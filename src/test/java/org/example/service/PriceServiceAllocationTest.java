@@ -0,0 +1,100 @@
+package org.example.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * the ranking endpoints must not allocate once the prices are loaded and the ranking is built.
+ * measured with the allocation counter of the thread, on the hotspot jvm.
+ * the service logs at the info level like in the application, without a logging configuration
+ * the debug messages would be formatted and measured as well.
+ */
+class PriceServiceAllocationTest {
+
+    private static final LocalDate DAY = LocalDate.of(2022, 1, 1);
+    /**
+     * enough calls for the jit to compile the calls, until then escape analysis does not remove the temporary objects.
+     */
+    private static final int WARM_UP_CALLS = 100_000;
+    private static final int CALLS = 10_000;
+    /**
+     * less than a byte per call: an object per call would be at least 16 bytes per call.
+     * the rest is slack for a late compilation during the measurement.
+     */
+    private static final long MAX_BYTES = CALLS;
+
+    @TempDir
+    Path directory;
+
+    private PriceService priceService;
+    private final Logger logger = (Logger) LoggerFactory.getLogger(PriceService.class);
+    private Level level;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        level = logger.getLevel();
+        logger.setLevel(Level.INFO);
+        long start = DAY.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        for (String currency: new String[] {"BTC", "ETH", "XRP"}) {
+            StringBuilder content = new StringBuilder("timestamp,symbol,price\n");
+            for (int i = 0; i < 100; i++) {
+                content.append(start + i * 3_600_000L).append(',').append(currency).append(',')
+                    .append(10 + (i * 7 + currency.length()) % 13).append('\n');
+            }
+            Files.writeString(directory.resolve(currency + "_values.csv"), content);
+        }
+        priceService = new PriceService();
+        priceService.directory = directory.toString();
+    }
+
+    @AfterEach
+    void restoreLevel() {
+        logger.setLevel(level);
+    }
+
+    @Test
+    void getNormalized_noAllocation() {
+        Assertions.assertEquals(3, priceService.getNormalized().size());
+
+        Assertions.assertTrue(allocatedBytes(() -> priceService.getNormalized()) <= MAX_BYTES);
+    }
+
+    @Test
+    void getNormalizedForDay_noAllocation() {
+        Assertions.assertNotNull(priceService.getNormalizedForDay(DAY));
+
+        Assertions.assertTrue(allocatedBytes(() -> priceService.getNormalizedForDay(DAY)) <= MAX_BYTES);
+    }
+
+    /**
+     * @return bytes allocated by CALLS calls after WARM_UP_CALLS warm-up calls
+     */
+    private static long allocatedBytes(Runnable call) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        // the first call of the counter initializes it and allocates
+        threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < WARM_UP_CALLS; i++) {
+            call.run();
+        }
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < CALLS; i++) {
+            call.run();
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+        return allocated;
+    }
+}
@@ -0,0 +1,220 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.model.CandleInterval;
+import org.example.model.PriceSeries;
+import org.example.model.Tick;
+import org.example.util.Currency;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+class PriceServiceEvictionTest {
+
+    private static final LocalDate DAY = LocalDate.of(2022, 1, 1);
+
+    @TempDir
+    Path directory;
+
+    private PriceService priceService;
+    private MeterRegistry registry;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        writeFile("BTC", 10.0, 20.0, 15.0);
+        writeFile("ETH", 4.0, 5.0, 6.0);
+        writeFile("XRP", 1.0, 1.5, 2.5);
+        registry = new SimpleMeterRegistry();
+        priceService = new PriceService();
+        priceService.directory = directory.toString();
+        priceService.meterRegistry = registry;
+        // every series is larger than the budget, only the one used last stays
+        priceService.memoryBudgetBytes = 1;
+    }
+
+    private void writeFile(String currency, double... prices) throws IOException {
+        long start = DAY.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        StringBuilder content = new StringBuilder("timestamp,symbol,price\n");
+        for (int i = 0; i < prices.length; i++) {
+            content.append(start + i * 3_600_000L).append(',').append(currency).append(',').append(prices[i]).append('\n');
+        }
+        Files.writeString(directory.resolve(currency + "_values.csv"), content);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        priceService.getCandles("BTC", CandleInterval.ONE_HOUR);
+        priceService.getCandles("ETH", CandleInterval.ONE_HOUR);
+
+        Assertions.assertEquals(Set.of("ETH"), loaded());
+        Assertions.assertEquals(1.0, registry.get("price.cache.evictions").counter().count());
+        Assertions.assertTrue(registry.get("price.cache.footprint").gauge().value() > 0);
+
+        Assertions.assertEquals(3, priceService.getCandles("BTC", CandleInterval.ONE_HOUR).size());
+        Assertions.assertEquals(Set.of("BTC"), loaded());
+        Assertions.assertEquals(2, fileReads("BTC"));
+    }
+
+    @Test
+    void summariesStayResident() {
+        Map<Currency, Map<String, Double>> prices = priceService.getPrices();
+        String winner = priceService.getNormalizedForDay(DAY);
+        long version = priceService.getDataVersion();
+
+        Assertions.assertEquals(1, loaded().size());
+        Assertions.assertEquals(prices, priceService.getPrices());
+        Assertions.assertEquals(3, priceService.getNormalized().size());
+        Assertions.assertEquals(winner, priceService.getNormalizedForDay(DAY));
+        Assertions.assertEquals("XRP", winner);
+        Assertions.assertEquals(20.0, priceService.getPrices("BTC").get("max"));
+        Assertions.assertEquals(version, priceService.getDataVersion());
+        for (String currency: List.of("BTC", "ETH", "XRP")) {
+            Assertions.assertEquals(1, fileReads(currency));
+        }
+    }
+
+    @Test
+    void zoneIndexesStayResident() {
+        ZoneId zone = previousDayZone();
+        priceService.getNormalized();
+        Set<String> resident = loaded();
+
+        Assertions.assertEquals("XRP", priceService.getNormalizedForDay(DAY, zone));
+        // every day of the range looks the zone up, the files are not read again per day
+        Map<LocalDate, String> winners = priceService.getNormalizedForDays(DAY.minusDays(3000), DAY.plusDays(659), zone);
+        Assertions.assertEquals(Set.of(DAY.minusDays(1), DAY), winners.keySet());
+        Assertions.assertEquals("XRP", priceService.getNormalizedForDay(DAY, zone));
+        Assertions.assertEquals(resident, loaded());
+        Assertions.assertEquals(2.0, registry.get("price.cache.evictions").counter().count());
+        for (String currency: List.of("BTC", "ETH", "XRP")) {
+            // the evicted currencies are read once more for the zone, the resident one is not
+            Assertions.assertEquals(resident.contains(currency) ? 1 : 2, fileReads(currency));
+        }
+    }
+
+    @Test
+    void zoneIndexes_tooManyZones() {
+        priceService.getNormalized();
+        Set<String> resident = loaded();
+        for (int i = 0; i < PriceSeries.MAX_CACHED_ZONES; i++) {
+            priceService.getNormalizedForDays(DAY, DAY.plusDays(10), halfHourZone(i - 8));
+        }
+        Map<String, Long> reads = Map.of("BTC", fileReads("BTC"), "ETH", fileReads("ETH"), "XRP", fileReads("XRP"));
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> priceService.getNormalizedForDays(DAY, DAY.plusDays(10), halfHourZone(9)));
+        for (int i = 0; i < PriceSeries.MAX_CACHED_ZONES; i++) {
+            priceService.getNormalizedForDay(DAY, halfHourZone(i - 8));
+        }
+        Assertions.assertEquals(resident, loaded());
+        for (String currency: List.of("BTC", "ETH", "XRP")) {
+            Assertions.assertEquals(reads.get(currency), fileReads(currency));
+        }
+    }
+
+    @Test
+    void ingestedTicksSurviveEviction() {
+        priceService.ingest("BTC", List.of(new Tick(1000L, 30.0)));
+        priceService.getCandles("ETH", CandleInterval.ONE_HOUR);
+
+        Assertions.assertEquals(Set.of("ETH"), loaded());
+        Assertions.assertEquals(4, priceService.getCandles("BTC", CandleInterval.ONE_MINUTE).size());
+        Assertions.assertEquals(30.0, priceService.getPrices("BTC").get("max"));
+        Assertions.assertEquals(2, fileReads("BTC"));
+    }
+
+    @Test
+    void ingestedTicksAreSavedToSnapshot() {
+        priceService.snapshotEnabled = true;
+        priceService.ingest("BTC", List.of(new Tick(1000L, 30.0)));
+        priceService.getCandles("ETH", CandleInterval.ONE_HOUR);
+
+        Assertions.assertEquals(Set.of("ETH"), loaded());
+        Assertions.assertEquals(4, priceService.getCandles("BTC", CandleInterval.ONE_MINUTE).size());
+        Assertions.assertEquals(30.0, priceService.getPrices("BTC").get("max"));
+        Assertions.assertEquals(1, fileReads("BTC"));
+    }
+
+    @Test
+    void ingestedTicks_evictedAndFileAppended() throws IOException {
+        priceService.snapshotEnabled = true;
+        priceService.ingest("BTC", List.of(new Tick(1000L, 30.0)));
+        priceService.getCandles("ETH", CandleInterval.ONE_HOUR);
+        appendTick("BTC", 40.0);
+
+        // the snapshot no longer matches the file, the series is parsed from the CSV file
+        Assertions.assertEquals(5, priceService.getCandles("BTC", CandleInterval.ONE_MINUTE).size());
+        Assertions.assertEquals(40.0, priceService.getPrices("BTC").get("max"));
+        Assertions.assertEquals(1000L, priceService.getSeries("BTC").timestampAt(0));
+        Assertions.assertEquals(2, fileReads("BTC"));
+    }
+
+    @Test
+    void ingestedTicks_evictedAndReloaded() throws IOException {
+        priceService.ingest("BTC", List.of(new Tick(1000L, 30.0)));
+        priceService.getCandles("ETH", CandleInterval.ONE_HOUR);
+        appendTick("BTC", 40.0);
+
+        priceService.reload("BTC");
+
+        Assertions.assertEquals(Set.of("BTC"), loaded());
+        Assertions.assertEquals(5, priceService.getCandles("BTC", CandleInterval.ONE_MINUTE).size());
+        Assertions.assertEquals(1000L, priceService.getSeries("BTC").timestampAt(0));
+    }
+
+    @Test
+    void reload_evictedCurrency() throws IOException {
+        priceService.getCandles("BTC", CandleInterval.ONE_HOUR);
+        priceService.getCandles("ETH", CandleInterval.ONE_HOUR);
+        appendTick("BTC", 40.0);
+
+        priceService.reload("BTC");
+
+        Assertions.assertEquals(40.0, priceService.getPrices("BTC").get("max"));
+        Assertions.assertEquals(Set.of("BTC"), loaded());
+    }
+
+    /**
+     * one hour behind the default zone, the first tick of every file falls on the previous day.
+     */
+    private static ZoneId previousDayZone() {
+        ZoneOffset defaultOffset = ZoneId.systemDefault().getRules().getOffset(DAY.atStartOfDay());
+        return ZoneOffset.ofTotalSeconds(defaultOffset.getTotalSeconds() - 3600);
+    }
+
+    /**
+     * never equal to the default zone of the daily index
+     */
+    private static ZoneId halfHourZone(int hours) {
+        return ZoneOffset.ofTotalSeconds(hours * 3600 + 1800);
+    }
+
+    private void appendTick(String currency, double price) throws IOException {
+        long start = DAY.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        Files.writeString(directory.resolve(currency + "_values.csv"),
+            (start + 4 * 3_600_000L) + "," + currency + "," + price + "\n", StandardOpenOption.APPEND);
+    }
+
+    private Set<String> loaded() {
+        return priceService.getMemoryFootprint().keySet().stream().map(Currency::name)
+            .collect(Collectors.toSet());
+    }
+
+    private long fileReads(String currency) {
+        return registry.get("price.file.load").tag("currency", currency).tag("source", "csv").timer().count();
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.service;
+
+import org.example.model.PriceSeries;
+import org.example.model.Tick;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+class PriceServiceIngestTest {
+
+    private static final int THREADS = 8;
+    private static final int BATCHES = 200;
+
+    @TempDir
+    Path directory;
+
+    private PriceService priceService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.writeString(directory.resolve("BTC_values.csv"), "timestamp,symbol,price\n1000,BTC,10.0\n2000,BTC,20.0\n");
+        priceService = new PriceService();
+        priceService.directory = directory.toString();
+    }
+
+    @Test
+    void ingest_updatesStatistics() {
+        Map<String, Double> result = priceService.ingest("btc", List.of(new Tick(4000L, 30.0), new Tick(3000L, 5.0)));
+
+        Assertions.assertEquals(5.0, result.get("min"));
+        Assertions.assertEquals(30.0, result.get("max"));
+        Assertions.assertEquals(10.0, result.get("oldest"));
+        Assertions.assertEquals(30.0, result.get("newest"));
+        Assertions.assertEquals(result, priceService.getPrices("BTC"));
+    }
+
+    @Test
+    void ingest_olderTickReplacesPrice() {
+        Map<String, Double> result = priceService.ingest("BTC", List.of(new Tick(1000L, 15.0)));
+
+        Assertions.assertEquals(15.0, result.get("min"));
+        Assertions.assertEquals(15.0, result.get("oldest"));
+    }
+
+    @Test
+    void ingest_concurrentBatches() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int offset = thread;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < BATCHES; i++) {
+                    long timestamp = 10_000L + (i * THREADS + offset) * 1000L;
+                    priceService.ingest("BTC", List.of(new Tick(timestamp, 100.0 + offset)));
+                    Map<String, Double> prices = priceService.getPrices("BTC");
+                    Assertions.assertEquals(10.0, prices.get("min"));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future: futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        PriceSeries series = priceService.readFile("BTC");
+        Assertions.assertEquals(2, series.size());
+        Map<String, Double> prices = priceService.getPrices("BTC");
+        Assertions.assertEquals(100.0 + THREADS - 1, prices.get("max"));
+        Assertions.assertEquals(100.0 + (BATCHES * THREADS - 1) % THREADS, prices.get("newest"));
+        PriceSeries ingested = priceService.getSeries("BTC");
+        Assertions.assertEquals(2 + THREADS * BATCHES, ingested.size());
+        for (int i = 1; i < ingested.size(); i++) {
+            Assertions.assertTrue(ingested.timestampAt(i - 1) < ingested.timestampAt(i));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+class PriceServiceMetricsTest {
+
+    private static final String CONTENT = "timestamp,symbol,price\n1000,BTC,10.0\n2000,BTC,abc\n3000,BTC,20.0\n";
+
+    @TempDir
+    Path directory;
+
+    private PriceService priceService;
+    private MeterRegistry registry;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.writeString(directory.resolve("BTC_values.csv"), CONTENT);
+        registry = new SimpleMeterRegistry();
+        priceService = new PriceService();
+        priceService.directory = directory.toString();
+        priceService.meterRegistry = registry;
+    }
+
+    @Test
+    void load_recordsFileMeters() {
+        priceService.getPrices("BTC");
+
+        Assertions.assertEquals(1, registry.get("price.file.load").tag("currency", "BTC").tag("source", "csv")
+            .timer().count());
+        Assertions.assertEquals(2.0, registry.get("price.file.rows").tag("currency", "BTC").counter().count());
+        Assertions.assertEquals(1.0, registry.get("price.file.rows.rejected").tag("currency", "BTC")
+            .tag("reason", "malformed").counter().count());
+        Assertions.assertEquals(1.0, registry.get("price.file.rows.rejected").tag("currency", "BTC")
+            .tag("reason", "unknown").counter().count());
+        Assertions.assertEquals((double) CONTENT.length(), registry.get("price.file.bytes").tag("currency", "BTC")
+            .counter().count());
+        Assertions.assertTrue(registry.get("price.series.footprint").tag("currency", "BTC").gauge().value() > 0);
+    }
+
+    @Test
+    void cache_hitsAndMisses() {
+        priceService.getPrices("BTC");
+        priceService.getPrices("BTC");
+        priceService.getPrices("BTC");
+
+        Assertions.assertEquals(1.0, registry.get("price.cache.requests").tag("result", "miss").counter().count());
+        Assertions.assertEquals(2.0, registry.get("price.cache.requests").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void reload_recordsAppendedRows() throws IOException {
+        priceService.getPrices("BTC");
+
+        Files.writeString(directory.resolve("BTC_values.csv"), "4000,BTC,40.0\n", StandardCharsets.UTF_8,
+            StandardOpenOption.APPEND);
+        priceService.reload("BTC");
+
+        Assertions.assertEquals(1, registry.get("price.file.load").tag("currency", "BTC").tag("source", "reload")
+            .timer().count());
+        Assertions.assertEquals(3.0, registry.get("price.file.rows").tag("currency", "BTC").counter().count());
+    }
+}
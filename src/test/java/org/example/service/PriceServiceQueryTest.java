@@ -0,0 +1,171 @@
+package org.example.service;
+
+import org.example.model.CandleInterval;
+import org.example.model.Correlation;
+import org.example.model.PriceQuery;
+import org.example.model.PriceQueryResult;
+import org.example.model.PriceSeries;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+class PriceServiceQueryTest {
+
+    private static final LocalDate DAY = LocalDate.of(2022, 1, 1);
+
+    @TempDir
+    Path directory;
+
+    private PriceService priceService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        writeFile("BTC", 10.0, 20.0, 15.0);
+        writeFile("ETH", 4.0, 5.0, 6.0);
+        writeFile("XRP", 1.0, 1.5, 2.5);
+        priceService = new PriceService();
+        priceService.directory = directory.toString();
+    }
+
+    private void writeFile(String currency, double... prices) throws IOException {
+        long start = DAY.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        StringBuilder content = new StringBuilder("timestamp,symbol,price\n");
+        for (int i = 0; i < prices.length; i++) {
+            content.append(start + i * 3_600_000L).append(',').append(currency).append(',').append(prices[i]).append('\n');
+        }
+        Files.writeString(directory.resolve(currency + "_values.csv"), content);
+    }
+
+    @Test
+    void query_sameAsSingleCalls() {
+        PriceQueryResult result = priceService.query(new PriceQuery(List.of("eth", "BTC"), List.of(DAY, DAY.plusDays(1)),
+            List.of("max", "normalized")));
+
+        Assertions.assertEquals(List.of("ETH", "BTC"), List.copyOf(result.currencies().keySet()));
+        PriceQueryResult.CurrencyResult btc = result.currencies().get("BTC");
+        Assertions.assertEquals(Map.of("max", 20.0, "normalized", 1.0), btc.stats());
+        Assertions.assertEquals(List.of("max", "normalized"), List.copyOf(btc.stats().keySet()));
+        Assertions.assertEquals(20.0, btc.days().get(DAY).get("max"));
+        Assertions.assertEquals(1.0, btc.days().get(DAY).get("normalized"));
+        Assertions.assertNull(btc.days().get(DAY.plusDays(1)));
+        Assertions.assertEquals("BTC", result.winners().get(DAY));
+        Assertions.assertFalse(result.winners().containsKey(DAY.plusDays(1)));
+    }
+
+    @Test
+    void query_allCurrenciesAndStats() {
+        PriceQueryResult result = priceService.query(new PriceQuery(null, List.of(DAY), null));
+
+        Assertions.assertEquals(List.of("BTC", "ETH", "XRP"), List.copyOf(result.currencies().keySet()));
+        Map<String, Object> xrp = result.currencies().get("XRP").stats();
+        Assertions.assertEquals(PriceQuery.STATS, List.copyOf(xrp.keySet()));
+        Assertions.assertEquals(1.0, xrp.get("oldest"));
+        Assertions.assertEquals(2.5, xrp.get("newest"));
+        Assertions.assertEquals(priceService.getNormalizedForDay(DAY), result.winners().get(DAY));
+        Assertions.assertEquals("XRP", result.winners().get(DAY));
+    }
+
+    @Test
+    void query_loadsOnLoadPool() {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        priceService = recordingLoadThreads(threads);
+
+        priceService.query(new PriceQuery(List.of("BTC", "ETH", "XRP"), List.of(DAY), null));
+        priceService.close();
+
+        Assertions.assertFalse(threads.isEmpty());
+        Assertions.assertTrue(threads.stream().allMatch(name -> name.startsWith("price-load-")), threads::toString);
+    }
+
+    @Test
+    void getCorrelation_loadsOnLoadPool() {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        priceService = recordingLoadThreads(threads);
+
+        priceService.getCorrelation(List.of("BTC", "ETH", "XRP"), CandleInterval.ONE_HOUR, null, null);
+        priceService.close();
+
+        Assertions.assertFalse(threads.isEmpty());
+        Assertions.assertTrue(threads.stream().allMatch(name -> name.startsWith("price-load-")), threads::toString);
+    }
+
+    /**
+     * @param threads the names of the threads that read the files
+     */
+    private PriceService recordingLoadThreads(Set<String> threads) {
+        PriceService service = new PriceService() {
+            @Override
+            public PriceSeries readFile(String currency) {
+                threads.add(Thread.currentThread().getName());
+                return super.readFile(currency);
+            }
+        };
+        service.directory = directory.toString();
+        service.warmUpThreads = 2;
+        return service;
+    }
+
+    @Test
+    void getCorrelation() {
+        Correlation correlation = priceService.getCorrelation(List.of("ETH", "btc"), CandleInterval.ONE_HOUR, null, null);
+
+        Assertions.assertEquals(List.of("ETH", "BTC"), correlation.currencies());
+        Assertions.assertEquals(3 * 3_600_000L, correlation.to() - correlation.from());
+        Assertions.assertEquals(1.0, correlation.matrix()[0][0], 1e-12);
+        Assertions.assertEquals(1.0, correlation.matrix()[0][1], 1e-12);
+        Assertions.assertEquals(correlation.matrix()[0][1], correlation.matrix()[1][0]);
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> priceService.getCorrelation(null, CandleInterval.ONE_MINUTE, 0L, Long.MAX_VALUE));
+    }
+
+    @Test
+    void getCorrelation_pointsOfAllCurrenciesLimited() {
+        priceService.analyticsMaxPoints = 9;
+
+        // 3 intervals, 2 returns
+        Assertions.assertEquals(2, priceService.getReturns("BTC", CandleInterval.ONE_HOUR, null, null).size());
+        // 3 intervals of 3 currencies
+        Assertions.assertEquals(3, priceService.getCorrelation(null, CandleInterval.ONE_HOUR, null, null)
+            .currencies().size());
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> priceService.getCorrelation(null, CandleInterval.ONE_HOUR, null, 4 * 3_600_000L
+                + DAY.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli()));
+
+        priceService.analyticsMaxPoints = 8;
+
+        // the matrix of 3 currencies has 9 values
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> priceService.getCorrelation(null, CandleInterval.ONE_HOUR, null, null));
+        Assertions.assertEquals(2, priceService.getCorrelation(List.of("BTC", "ETH"), CandleInterval.ONE_HOUR, null, null)
+            .currencies().size());
+    }
+
+    @Test
+    void query_zone() {
+        // an hour behind the default zone, the first tick falls on the day before
+        ZoneOffset offset = ZoneId.systemDefault().getRules().getOffset(DAY.atStartOfDay());
+        ZoneId zone = ZoneOffset.ofTotalSeconds(offset.getTotalSeconds() - 3600);
+
+        PriceQueryResult result = priceService.query(new PriceQuery(List.of("BTC"), List.of(DAY.minusDays(1), DAY),
+            List.of("min", "max")), zone);
+
+        Map<LocalDate, Map<String, Object>> days = result.currencies().get("BTC").days();
+        Assertions.assertEquals(Map.of("min", 10.0, "max", 10.0), days.get(DAY.minusDays(1)));
+        Assertions.assertEquals(Map.of("min", 15.0, "max", 20.0), days.get(DAY));
+        Assertions.assertEquals(10.0, priceService.query(new PriceQuery(List.of("BTC"), List.of(DAY), List.of("min")))
+            .currencies().get("BTC").days().get(DAY).get("min"));
+        Assertions.assertEquals("XRP", priceService.getNormalizedForDay(DAY, zone));
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+class PriceServiceReloadTest {
+
+    @TempDir
+    Path directory;
+
+    private PriceService priceService;
+    private Path btcFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        btcFile = directory.resolve("BTC_values.csv");
+        Files.writeString(btcFile, "timestamp,symbol,price\n1000,BTC,10.0\n2000,BTC,20.0\n");
+        priceService = new PriceService();
+        priceService.directory = directory.toString();
+    }
+
+    @Test
+    void reload_appendedRows() throws IOException {
+        Map<String, Double> before = priceService.getPrices("BTC");
+
+        Files.writeString(btcFile, "3000,BTC,5.0\n4000,BTC,30.0\n5000,BT", StandardCharsets.UTF_8,
+            StandardOpenOption.APPEND);
+        priceService.reload("BTC");
+        Map<String, Double> after = priceService.getPrices("BTC");
+
+        Assertions.assertEquals(20.0, before.get("max"));
+        Assertions.assertEquals(30.0, after.get("max"));
+        Assertions.assertEquals(5.0, after.get("min"));
+        Assertions.assertEquals(10.0, after.get("oldest"));
+        Assertions.assertEquals(30.0, after.get("newest"));
+
+        Files.writeString(btcFile, "C,40.0\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        priceService.reload("BTC");
+
+        Assertions.assertEquals(40.0, priceService.getPrices("BTC").get("newest"));
+    }
+
+    @Test
+    void reload_truncatedFileReadAgain() throws IOException {
+        priceService.getPrices("BTC");
+
+        Files.writeString(btcFile, "timestamp,symbol,price\n7000,BTC,7.0\n");
+        priceService.reload("BTC");
+        Map<String, Double> after = priceService.getPrices("BTC");
+
+        Assertions.assertEquals(7.0, after.get("min"));
+        Assertions.assertEquals(7.0, after.get("max"));
+    }
+
+    @Test
+    void reload_replacedByLargerFileReadAgain() throws IOException {
+        priceService.getPrices("BTC");
+
+        Path replacement = directory.resolve("BTC_values.csv.tmp");
+        Files.writeString(replacement, "timestamp,symbol,price\n7000,BTC,7.0\n8000,BTC,8.0\n9000,BTC,9.0\n");
+        Files.move(replacement, btcFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        priceService.reload("BTC");
+        Map<String, Double> after = priceService.getPrices("BTC");
+
+        Assertions.assertEquals(7.0, after.get("oldest"));
+        Assertions.assertEquals(7.0, after.get("min"));
+        Assertions.assertEquals(9.0, after.get("max"));
+    }
+
+    @Test
+    void reload_createdFileReadAgain() throws IOException {
+        priceService.getPrices("BTC");
+
+        Files.writeString(btcFile, "timestamp,symbol,price\n7000,BTC,7.0\n8000,BTC,8.0\n9000,BTC,9.0\n");
+        priceService.reload("BTC", true);
+        Map<String, Double> after = priceService.getPrices("BTC");
+
+        Assertions.assertEquals(7.0, after.get("oldest"));
+        Assertions.assertEquals(9.0, after.get("max"));
+    }
+
+    @Test
+    void reload_notLoadedCurrencySkipped() {
+        priceService.reload("ETH");
+
+        Assertions.assertTrue(priceService.getMemoryFootprint().isEmpty());
+    }
+}
@@ -0,0 +1,132 @@
+package org.example.service;
+
+import org.example.model.PriceSeries;
+import org.example.model.Tick;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+class PriceServiceSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    private Path btcFile;
+    private final AtomicInteger fileReads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        btcFile = directory.resolve("BTC_values.csv");
+        Files.writeString(btcFile, "timestamp,symbol,price\n1000,BTC,10.0\n2000,BTC,20.0\n3000,BTC,5.0\n");
+    }
+
+    private PriceService newService() {
+        PriceService priceService = new PriceService() {
+            @Override
+            public PriceSeries readFile(String currency) {
+                fileReads.incrementAndGet();
+                return super.readFile(currency);
+            }
+        };
+        priceService.directory = directory.toString();
+        priceService.snapshotEnabled = true;
+        return priceService;
+    }
+
+    @Test
+    void restart_readsSnapshot() {
+        PriceSeries parsed = newService().getSeries("BTC");
+
+        PriceSeries restored = newService().getSeries("BTC");
+
+        Assertions.assertEquals(1, fileReads.get());
+        Assertions.assertTrue(Files.exists(directory.resolve(".snapshot").resolve("BTC.snapshot")));
+        Assertions.assertEquals(parsed.size(), restored.size());
+        for (int i = 0; i < parsed.size(); i++) {
+            Assertions.assertEquals(parsed.timestampAt(i), restored.timestampAt(i));
+            Assertions.assertEquals(parsed.priceAt(i), restored.priceAt(i));
+        }
+        Assertions.assertEquals(parsed.summary().getStat(), restored.summary().getStat());
+    }
+
+    @Test
+    void write_tooLargeSnapshotSkipped() throws IOException {
+        PriceService priceService = newService();
+        PriceSeries series = priceService.getSeries("BTC");
+        Path snapshot = directory.resolve(".snapshot").resolve("BTC.snapshot");
+        Assertions.assertTrue(Files.exists(snapshot));
+        PriceFileState state = new SeriesSnapshotStore(snapshot.getParent())
+            .read("BTC", btcFile.toFile()).state();
+
+        // 75 bytes with one byte per timestamp, 78 bytes written
+        new SeriesSnapshotStore(snapshot.getParent(), 76).write("BTC", series, state);
+
+        Assertions.assertFalse(Files.exists(snapshot));
+        try (Stream<Path> files = Files.list(snapshot.getParent())) {
+            Assertions.assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void restart_changedFileParsed() throws IOException {
+        newService().getPrices("BTC");
+        Files.writeString(btcFile, "4000,BTC,40.0\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        PriceService restarted = newService();
+
+        Assertions.assertEquals(40.0, restarted.getPrices("BTC").get("max"));
+        Assertions.assertEquals(2, fileReads.get());
+    }
+
+    @Test
+    void restart_corruptedSnapshotParsed() throws IOException {
+        newService().getPrices("BTC");
+        try (FileChannel channel = FileChannel.open(directory.resolve(".snapshot").resolve("BTC.snapshot"),
+            StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {1, 2, 3}), 50);
+        }
+
+        PriceService restarted = newService();
+
+        Assertions.assertEquals(20.0, restarted.getPrices("BTC").get("max"));
+        Assertions.assertEquals(2, fileReads.get());
+    }
+
+    @Test
+    void saveSnapshots_keepsIngestedTicks() {
+        PriceService priceService = newService();
+        priceService.ingest("BTC", List.of(new Tick(5000L, 50.0)));
+        priceService.saveSnapshots();
+
+        PriceService restarted = newService();
+
+        Assertions.assertEquals(50.0, restarted.getPrices("BTC").get("newest"));
+        Assertions.assertEquals(1, fileReads.get());
+    }
+
+    @Test
+    void restart_reloadAfterSnapshot() throws IOException {
+        newService().getPrices("BTC");
+        PriceService restarted = newService();
+        restarted.getPrices("BTC");
+
+        Files.writeString(btcFile, "4000,BTC,40.0\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        restarted.reload("BTC");
+
+        Assertions.assertEquals(40.0, restarted.getPrices("BTC").get("newest"));
+        Assertions.assertEquals(10.0, restarted.getPrices("BTC").get("oldest"));
+        Assertions.assertEquals(1, fileReads.get());
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.service;
+
+import org.example.util.Currency;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+class PriceServiceSymbolsTest {
+
+    private static final int SYMBOLS = 300;
+
+    @TempDir
+    Path directory;
+
+    private PriceService priceService;
+
+    @BeforeEach
+    void setUp() {
+        priceService = new PriceService();
+        priceService.directory = directory.toString();
+    }
+
+    @Test
+    void getCurrencies_discoveredFromFileNames() throws IOException {
+        writePrices("ETH", 2.0, 3.0);
+        writePrices("BTC", 1.0, 2.0);
+        Files.writeString(directory.resolve("eth_values.csv"), "");
+        Files.writeString(directory.resolve("notes.txt"), "");
+
+        List<Currency> currencies = priceService.getCurrencies();
+
+        Assertions.assertEquals(2, currencies.size());
+        Assertions.assertEquals("BTC", currencies.get(0).name());
+        Assertions.assertEquals(0, currencies.get(0).id());
+        Assertions.assertEquals("ETH", currencies.get(1).name());
+        Assertions.assertEquals(1, currencies.get(1).id());
+        Assertions.assertSame(currencies.get(1), priceService.findCurrency("eth"));
+        Assertions.assertNull(priceService.findCurrency("LTC"));
+    }
+
+    @Test
+    void findCurrency_fileAddedLater() throws IOException {
+        writePrices("BTC", 1.0, 2.0);
+        priceService.getPrices();
+
+        writePrices("XRP", 1.0, 4.0);
+
+        Assertions.assertEquals(4.0, priceService.getPrices("xrp").get("max"));
+        Assertions.assertEquals(2, priceService.getPrices().size());
+    }
+
+    @Test
+    void getPrices_missingFileSkipped() throws IOException {
+        writePrices("BTC", 1.0, 2.0);
+        writePrices("ETH", 2.0, 3.0);
+        priceService.getCurrencies();
+        Files.delete(directory.resolve("ETH_values.csv"));
+
+        Map<Currency, Map<String, Double>> prices = priceService.getPrices();
+
+        Assertions.assertEquals(1, prices.size());
+        Assertions.assertEquals(2.0, prices.get(priceService.findCurrency("BTC")).get("max"));
+        Assertions.assertEquals(1, priceService.getNormalized().size());
+    }
+
+    @Test
+    void getNormalized_limitSameAsHeadOfRanking() throws IOException {
+        Random random = new Random(42);
+        for (int i = 0; i < SYMBOLS; i++) {
+            // few distinct ranges, so many currencies are tied
+            writePrices("S" + i, 10.0, 10.0 + random.nextInt(20));
+        }
+
+        List<Map.Entry<Currency, Double>> ranking = new ArrayList<>(priceService.getNormalized());
+
+        Assertions.assertEquals(SYMBOLS, ranking.size());
+        for (int limit: new int[] {0, 1, 7, 100, SYMBOLS, SYMBOLS + 1}) {
+            PriceService service = new PriceService();
+            service.directory = directory.toString();
+
+            List<Map.Entry<Currency, Double>> top = service.getNormalized(limit);
+
+            Assertions.assertEquals(Math.min(limit, SYMBOLS), top.size());
+            for (int i = 0; i < top.size(); i++) {
+                Assertions.assertEquals(ranking.get(i).getKey().name(), top.get(i).getKey().name());
+                Assertions.assertEquals(ranking.get(i).getValue(), top.get(i).getValue());
+            }
+        }
+    }
+
+    private void writePrices(String currency, double first, double second) throws IOException {
+        Files.writeString(directory.resolve(currency + "_values.csv"),
+            "timestamp,symbol,price\n1000," + currency + "," + first + "\n2000," + currency + "," + second + "\n");
+    }
+}
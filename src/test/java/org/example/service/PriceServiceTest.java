@@ -1,20 +1,26 @@
 package org.example.service;
 
-import org.example.util.Currency;
+import org.example.model.PriceSeries;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.util.HashMap;
+import java.time.ZoneId;
+import java.util.List;
 import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.doReturn;
 
 @ExtendWith(MockitoExtension.class)
 class PriceServiceTest {
@@ -23,16 +29,30 @@ class PriceServiceTest {
     @Spy
     private PriceService priceService = new PriceService();
 
+    @TempDir
+    Path directory;
+
+    /**
+     * the currencies are discovered from the file names, the content is mocked.
+     */
+    @BeforeEach
+    void createPriceFiles() throws IOException {
+        for (String currency: List.of("BTC", "DOGE", "ETH", "LTC", "XRP")) {
+            Files.createFile(directory.resolve(currency + "_values.csv"));
+        }
+        priceService.directory = directory.toString();
+    }
+
     @Test
     void getPrices() {
-        Map<LocalDateTime, Double> map = new HashMap<>();
-        map.put(LocalDateTime.of(date, time), 2.0);
-        map.put(LocalDateTime.of(date.plusDays(1), time), 4.0);
-        map.put(LocalDateTime.of(date.plusDays(2), time), 1.0);
-        map.put(LocalDateTime.of(date.plusDays(10), time), 3.0);
-        when(priceService.readFile(anyString())).thenReturn(map);
+        PriceSeries.Builder series = PriceSeries.builder();
+        series.add(toEpochMilli(LocalDateTime.of(date, time)), 2.0);
+        series.add(toEpochMilli(LocalDateTime.of(date.plusDays(1), time)), 4.0);
+        series.add(toEpochMilli(LocalDateTime.of(date.plusDays(2), time)), 1.0);
+        series.add(toEpochMilli(LocalDateTime.of(date.plusDays(10), time)), 3.0);
+        doReturn(series.build()).when(priceService).readFile(anyString());
 
-        Map<String, Double> result = priceService.getPrices(Currency.BTC.name());
+        Map<String, Double> result = priceService.getPrices("BTC");
 
         Assertions.assertEquals(4.0, result.get("max"));
         Assertions.assertEquals(1.0, result.get("min"));
@@ -42,60 +62,100 @@ class PriceServiceTest {
 
     @Test
     void getNormalizedForDay() {
-        Map<LocalDateTime, Double> mapBtc = new HashMap<>();
-        mapBtc.put(LocalDateTime.of(date, time), 2.0);
-        mapBtc.put(LocalDateTime.of(date, time.plusHours(3)), 5.0);
-        when(priceService.readFile(Currency.BTC.name())).thenReturn(mapBtc);
-
-        Map<LocalDateTime, Double> mapEth = new HashMap<>();
-        mapEth.put(LocalDateTime.of(date, time), 2.0);
-        mapEth.put(LocalDateTime.of(date, time.plusHours(3)), 4.0);
-        when(priceService.readFile(Currency.ETH.name())).thenReturn(mapEth);
-
-        Map<LocalDateTime, Double> mapLt = new HashMap<>();
-        mapLt.put(LocalDateTime.of(date, time), 2.0);
-        mapLt.put(LocalDateTime.of(date, time.plusHours(3)), 4.0);
-        when(priceService.readFile(Currency.LTC.name())).thenReturn(mapLt);
-
-        Map<LocalDateTime, Double> mapDo = new HashMap<>();
-        mapDo.put(LocalDateTime.of(date, time), 2.0);
-        mapDo.put(LocalDateTime.of(date, time.plusHours(3)), 4.0);
-        when(priceService.readFile(Currency.DOGE.name())).thenReturn(mapDo);
-
-        Map<LocalDateTime, Double> mapXrp = new HashMap<>();
-        mapXrp.put(LocalDateTime.of(date, time), 2.0);
-        mapXrp.put(LocalDateTime.of(date, time.plusHours(3)), 4.0);
-        when(priceService.readFile(Currency.XRP.name())).thenReturn(mapXrp);
+        PriceSeries.Builder mapBtc = PriceSeries.builder();
+        mapBtc.add(toEpochMilli(LocalDateTime.of(date, time)), 2.0);
+        mapBtc.add(toEpochMilli(LocalDateTime.of(date, time.plusHours(3))), 5.0);
+        doReturn(mapBtc.build()).when(priceService).readFile("BTC");
+
+        PriceSeries.Builder mapEth = PriceSeries.builder();
+        mapEth.add(toEpochMilli(LocalDateTime.of(date, time)), 2.0);
+        mapEth.add(toEpochMilli(LocalDateTime.of(date, time.plusHours(3))), 4.0);
+        doReturn(mapEth.build()).when(priceService).readFile("ETH");
+
+        PriceSeries.Builder mapLt = PriceSeries.builder();
+        mapLt.add(toEpochMilli(LocalDateTime.of(date, time)), 2.0);
+        mapLt.add(toEpochMilli(LocalDateTime.of(date, time.plusHours(3))), 4.0);
+        doReturn(mapLt.build()).when(priceService).readFile("LTC");
+
+        PriceSeries.Builder mapDo = PriceSeries.builder();
+        mapDo.add(toEpochMilli(LocalDateTime.of(date, time)), 2.0);
+        mapDo.add(toEpochMilli(LocalDateTime.of(date, time.plusHours(3))), 4.0);
+        doReturn(mapDo.build()).when(priceService).readFile("DOGE");
+
+        PriceSeries.Builder mapXrp = PriceSeries.builder();
+        mapXrp.add(toEpochMilli(LocalDateTime.of(date, time)), 2.0);
+        mapXrp.add(toEpochMilli(LocalDateTime.of(date, time.plusHours(3))), 4.0);
+        doReturn(mapXrp.build()).when(priceService).readFile("XRP");
 
         String result = priceService.getNormalizedForDay(date);
 
-        Assertions.assertEquals("BTC=1.5", result);
+        Assertions.assertEquals("BTC", result);
+    }
+
+    @Test
+    void getNormalizedForDays() {
+        PriceSeries.Builder mapBtc = PriceSeries.builder();
+        mapBtc.add(toEpochMilli(LocalDateTime.of(date, time)), 2.0);
+        mapBtc.add(toEpochMilli(LocalDateTime.of(date, time.plusHours(3))), 5.0);
+        mapBtc.add(toEpochMilli(LocalDateTime.of(date.plusDays(1), time)), 2.0);
+        mapBtc.add(toEpochMilli(LocalDateTime.of(date.plusDays(1), time.plusHours(3))), 3.0);
+        doReturn(mapBtc.build()).when(priceService).readFile("BTC");
+
+        PriceSeries.Builder mapEth = PriceSeries.builder();
+        mapEth.add(toEpochMilli(LocalDateTime.of(date, time)), 2.0);
+        mapEth.add(toEpochMilli(LocalDateTime.of(date, time.plusHours(3))), 4.0);
+        mapEth.add(toEpochMilli(LocalDateTime.of(date.plusDays(1), time)), 2.0);
+        mapEth.add(toEpochMilli(LocalDateTime.of(date.plusDays(1), time.plusHours(3))), 6.0);
+        doReturn(mapEth.build()).when(priceService).readFile("ETH");
+
+        doReturn(PriceSeries.empty()).when(priceService).readFile("LTC");
+        doReturn(PriceSeries.empty()).when(priceService).readFile("DOGE");
+        doReturn(PriceSeries.empty()).when(priceService).readFile("XRP");
+
+        Map<LocalDate, String> result = priceService.getNormalizedForDays(date.minusDays(1), date.plusDays(2));
+
+        Assertions.assertEquals(2, result.size());
+        Assertions.assertEquals("BTC", result.get(date));
+        Assertions.assertEquals("ETH", result.get(date.plusDays(1)));
+    }
+
+    @Test
+    void getNormalizedForDays_tooManyDays() {
+        priceService.normalizedMaxDays = 10;
+
+        Assertions.assertEquals(0, priceService.getNormalizedForDays(date, date.plusDays(9)).size());
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> priceService.getNormalizedForDays(date, date.plusDays(10)));
     }
 
     @Test
     void getNormalizedForDay_maxZero() {
-        Map<LocalDateTime, Double> mapBtc = new HashMap<>();
-        mapBtc.put(LocalDateTime.of(date, time), 0.0);
-        when(priceService.readFile(Currency.BTC.name())).thenReturn(mapBtc);
+        PriceSeries.Builder mapBtc = PriceSeries.builder();
+        mapBtc.add(toEpochMilli(LocalDateTime.of(date, time)), 0.0);
+        doReturn(mapBtc.build()).when(priceService).readFile("BTC");
 
-        Map<LocalDateTime, Double> mapEth = new HashMap<>();
-        mapEth.put(LocalDateTime.of(date, time), 0.0);
-        when(priceService.readFile(Currency.ETH.name())).thenReturn(mapEth);
+        PriceSeries.Builder mapEth = PriceSeries.builder();
+        mapEth.add(toEpochMilli(LocalDateTime.of(date, time)), 0.0);
+        doReturn(mapEth.build()).when(priceService).readFile("ETH");
 
-        Map<LocalDateTime, Double> mapLt = new HashMap<>();
-        mapLt.put(LocalDateTime.of(date, time), 0.0);
-        when(priceService.readFile(Currency.LTC.name())).thenReturn(mapLt);
+        PriceSeries.Builder mapLt = PriceSeries.builder();
+        mapLt.add(toEpochMilli(LocalDateTime.of(date, time)), 0.0);
+        doReturn(mapLt.build()).when(priceService).readFile("LTC");
 
-        Map<LocalDateTime, Double> mapDo = new HashMap<>();
-        mapDo.put(LocalDateTime.of(date, time), 0.0);
-        when(priceService.readFile(Currency.DOGE.name())).thenReturn(mapDo);
+        PriceSeries.Builder mapDo = PriceSeries.builder();
+        mapDo.add(toEpochMilli(LocalDateTime.of(date, time)), 0.0);
+        doReturn(mapDo.build()).when(priceService).readFile("DOGE");
 
-        Map<LocalDateTime, Double> mapXrp = new HashMap<>();
-        mapXrp.put(LocalDateTime.of(date, time), 0.0);
-        when(priceService.readFile(Currency.XRP.name())).thenReturn(mapXrp);
+        PriceSeries.Builder mapXrp = PriceSeries.builder();
+        mapXrp.add(toEpochMilli(LocalDateTime.of(date, time)), 0.0);
+        doReturn(mapXrp.build()).when(priceService).readFile("XRP");
 
         String result = priceService.getNormalizedForDay(date);
 
         Assertions.assertNull(result);
     }
+
+    private static long toEpochMilli(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
 }
@@ -1,6 +1,6 @@
 package org.example.service;
 
-import org.example.util.Currency;
+import org.example.model.PriceSeries;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -9,11 +9,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 
-import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.util.Map;
-
 @SpringBootTest
 @ExtendWith(MockitoExtension.class)
 @ActiveProfiles(profiles = "test")
@@ -24,24 +19,19 @@ class PriceTestServiceContextTest {
 
     @Test
     void readFile() {
-        LocalDateTime time1 = Instant.ofEpochMilli(1641009600000L)
-            .atZone(ZoneId.systemDefault())
-            .toLocalDateTime();
-        LocalDateTime time2 = Instant.ofEpochMilli(1641020400000L)
-            .atZone(ZoneId.systemDefault())
-            .toLocalDateTime();
-
-        Map<LocalDateTime, Double> resultMap = priceService.readFile(Currency.BTC.name());
+        PriceSeries result = priceService.readFile("BTC");
 
-        Assertions.assertEquals(2, resultMap.size());
-        Assertions.assertEquals(46813.21, resultMap.get(time1));
-        Assertions.assertEquals(46979.61, resultMap.get(time2));
+        Assertions.assertEquals(2, result.size());
+        Assertions.assertEquals(1641009600000L, result.timestampAt(0));
+        Assertions.assertEquals(46813.21, result.priceAt(0));
+        Assertions.assertEquals(1641020400000L, result.timestampAt(1));
+        Assertions.assertEquals(46979.61, result.priceAt(1));
     }
 
     @Test
     void readFile_noPrices() {
-        Map<LocalDateTime, Double> resultMap = priceService.readFile(Currency.ETH.name());
+        PriceSeries result = priceService.readFile("ETH");
 
-        Assertions.assertEquals(0, resultMap.size());
+        Assertions.assertEquals(0, result.size());
     }
 }